@@ -0,0 +1,103 @@
+package benchmark;
+
+import com.onqware.BridgeEntry;
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import com.onqware.MacAddress;
+import com.onqware.PrimitiveHashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-key findInterface calls compared with one findInterfaces call per burst,
+// on tables larger than the last level cache. Scores are bursts per second;
+// multiply by burst for lookups per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class BatchLookupBenchmark {
+
+    static final long SEED = 42;
+    // Number of prepared bursts cycled through (power of two)
+    static final int BURST_COUNT = 1 << 10;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"32", "256"})
+    public int burst;
+
+    @Param({"UNIFORM", "OUI_CLUSTERED"})
+    public MacDistribution distribution;
+
+    HashTable table;
+    PrimitiveHashTable primitiveTable;
+    long[][] bursts;
+    int[] outIfaces;
+    byte[] macAddress = new byte[BridgeEntry.NUM_FIELDS];
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HashTableException
+    {
+        long[] macs = distribution.generate(size, SEED);
+        table = HashTableBenchmark.build(HashTableBenchmark.toBytes(macs));
+        primitiveTable = new PrimitiveHashTable(size);
+        for ( int i = 0; i < macs.length; i++ )
+        {
+            primitiveTable.add(macs[i], i & 0xff);
+        }
+
+        bursts = new long[BURST_COUNT][];
+        for ( int i = 0; i < BURST_COUNT; i++ )
+        {
+            bursts[i] = MacDistribution.sample(macs, burst, SEED + i);
+        }
+        outIfaces = new int[burst];
+    }
+
+    private long[] nextBurst()
+    {
+        return bursts[cursor++ & (BURST_COUNT - 1)];
+    }
+
+    @Benchmark
+    public int[] hashTableSingle() throws HashTableException
+    {
+        long[] macs = nextBurst();
+        for ( int i = 0; i < burst; i++ )
+        {
+            MacAddress.toBytes(macs[i], macAddress);
+            outIfaces[i] = table.findInterface(macAddress);
+        }
+        return outIfaces;
+    }
+
+    @Benchmark
+    public int[] hashTableBatch() throws HashTableException
+    {
+        table.findInterfaces(nextBurst(), outIfaces, burst);
+        return outIfaces;
+    }
+
+    @Benchmark
+    public int[] primitiveSingle()
+    {
+        long[] macs = nextBurst();
+        for ( int i = 0; i < burst; i++ )
+        {
+            outIfaces[i] = primitiveTable.findInterface(macs[i]);
+        }
+        return outIfaces;
+    }
+
+    @Benchmark
+    public int[] primitiveBatch()
+    {
+        primitiveTable.findInterfaces(nextBurst(), outIfaces, burst);
+        return outIfaces;
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Time to build a table from a provisioned list: one add per entry on a
+// default sized table compared with a single parallel bulkLoad.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class BulkLoadBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "OUI_CLUSTERED"})
+    public MacDistribution distribution;
+
+    long[] macs;
+    int[] interfaceValues;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        macs = distribution.generate(size, HashTableBenchmark.SEED);
+        interfaceValues = new int[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            interfaceValues[i] = i & 0xff;
+        }
+    }
+
+    @Benchmark
+    public HashTable add() throws HashTableException
+    {
+        HashTable table = new HashTable();
+        for ( int i = 0; i < size; i++ )
+        {
+            table.add(macs[i], interfaceValues[i]);
+        }
+        return table;
+    }
+
+    @Benchmark
+    public HashTable bulkLoad() throws HashTableException
+    {
+        HashTable table = new HashTable();
+        table.bulkLoad(macs, interfaceValues, size);
+        return table;
+    }
+}
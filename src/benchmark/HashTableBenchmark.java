@@ -0,0 +1,125 @@
+package benchmark;
+
+import com.onqware.BridgeEntry;
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import com.onqware.MacAddress;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// HashTable add/find/findInterface/getHash across table sizes and MAC distributions.
+// Throughput and SampleTime (latency percentiles) are reported for lookups;
+// run through BenchmarkMain to add the allocation rate (-prof gc).
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class HashTableBenchmark {
+
+    // Number of lookup keys cycled through by each benchmark (power of two)
+    static final int LOOKUP_COUNT = 1 << 16;
+    static final long SEED = 42;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "OUI_CLUSTERED", "SEQUENTIAL_NIC"})
+    public MacDistribution distribution;
+
+    HashTable table;
+    byte[][] entries;
+    byte[][] hits;
+    byte[][] misses;
+    long[] packedHits;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HashTableException
+    {
+        long[] macs = distribution.generate(size, SEED);
+        entries = toBytes(macs);
+        packedHits = MacDistribution.sample(macs, LOOKUP_COUNT, SEED);
+        hits = toBytes(packedHits);
+        misses = toBytes(MacDistribution.sample(distribution.generateMissing(size, SEED), LOOKUP_COUNT, SEED));
+        table = build(entries);
+    }
+
+    static byte[][] toBytes(long[] macs)
+    {
+        byte[][] result = new byte[macs.length][];
+        for ( int i = 0; i < macs.length; i++ )
+        {
+            result[i] = new byte[BridgeEntry.NUM_FIELDS];
+            MacAddress.toBytes(macs[i], result[i]);
+        }
+        return result;
+    }
+
+    static HashTable build(byte[][] macAddresses) throws HashTableException
+    {
+        return build(new HashTable(), macAddresses);
+    }
+
+    static HashTable build(HashTable table, byte[][] macAddresses) throws HashTableException
+    {
+        for ( int i = 0; i < macAddresses.length; i++ )
+        {
+            BridgeEntry entry = new BridgeEntry();
+            entry.macAddress = macAddresses[i];
+            entry.interfaceValue = i & 0xff;
+            table.add(entry);
+        }
+        return table;
+    }
+
+    private byte[] next(byte[][] keys)
+    {
+        return keys[cursor++ & (LOOKUP_COUNT - 1)];
+    }
+
+    @Benchmark
+    public BridgeEntry find() throws HashTableException
+    {
+        return table.find(next(hits));
+    }
+
+    @Benchmark
+    public int findInterfaceHit() throws HashTableException
+    {
+        return table.findInterface(next(hits));
+    }
+
+    // Caller already holds the packed MAC address: no byte[] conversion
+    @Benchmark
+    public int findInterfacePacked() throws HashTableException
+    {
+        return table.findInterface(packedHits[cursor++ & (LOOKUP_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int findInterfaceMiss() throws HashTableException
+    {
+        return table.findInterface(next(misses));
+    }
+
+    @Benchmark
+    public int getHash()
+    {
+        return table.getHash(next(hits));
+    }
+
+    // Build a complete table of size entries, including the incremental resizes
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public void add(Blackhole blackhole) throws HashTableException
+    {
+        blackhole.consume(build(entries));
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import com.onqware.MacHasher;
+import com.onqware.MixingMacHasher;
+import com.onqware.NicMacHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// NIC identity hash compared with the seeded mixing hash: the cost of the hash
+// itself, and HashTable lookups on uniform and clustered MAC addresses.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class HasherBenchmark {
+
+    @Param({"NIC", "MIXING"})
+    public String hasherName;
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"UNIFORM", "OUI_CLUSTERED", "SEQUENTIAL_NIC"})
+    public MacDistribution distribution;
+
+    MacHasher hasher;
+    HashTable table;
+    long[] macs;
+    byte[][] lookups;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HashTableException
+    {
+        hasher = "NIC".equals(hasherName) ? new NicMacHasher() : MixingMacHasher.randomSeed();
+
+        long[] entries = distribution.generate(size, HashTableBenchmark.SEED);
+        macs = MacDistribution.sample(entries, HashTableBenchmark.LOOKUP_COUNT, HashTableBenchmark.SEED);
+        lookups = HashTableBenchmark.toBytes(macs);
+        table = HashTableBenchmark.build(new HashTable(size, hasher), HashTableBenchmark.toBytes(entries));
+    }
+
+    @Benchmark
+    public int hash()
+    {
+        return hasher.hash(macs[cursor++ & (HashTableBenchmark.LOOKUP_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int findInterface() throws HashTableException
+    {
+        return table.findInterface(lookups[cursor++ & (HashTableBenchmark.LOOKUP_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// MAC address populations used by the benchmarks.
+// Every generated set holds count unique packed 48-bit MAC addresses.
+public enum MacDistribution {
+
+    // Random OUI and NIC bytes
+    UNIFORM,
+    // Many vendors (OUIs) sharing the same NIC suffixes; every vendor's stations
+    // hash to the same few NIC indexes (see HashTableTest.testAddHashCollision)
+    OUI_CLUSTERED,
+    // One vendor assigning NIC values in order
+    SEQUENTIAL_NIC;
+
+    // Number of vendors used by OUI_CLUSTERED
+    static final int CLUSTERED_OUI_COUNT = 4096;
+    // First OUI used by the generated addresses
+    static final long BASE_OUI = 0x001B21L;
+
+    // Odd multiplier: i * UNIFORM_MULTIPLIER mod 2^48 is a permutation, so keys are unique
+    private static final long UNIFORM_MULTIPLIER = 0x5DEECE66DL;
+    private static final long MAC_MASK = 0xFFFFFFFFFFFFL;
+    private static final int NIC_BITS = 24;
+
+    // Return count unique packed MAC addresses in insertion order
+    public long[] generate(int count, long seed)
+    {
+        long[] macs = new long[count];
+        long offset = new Random(seed).nextLong();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            switch ( this )
+            {
+                case UNIFORM:
+                    macs[i] = ((i + offset) * UNIFORM_MULTIPLIER) & MAC_MASK;
+                    break;
+                case OUI_CLUSTERED:
+                    macs[i] = ((BASE_OUI + i % CLUSTERED_OUI_COUNT) << NIC_BITS) | (i / CLUSTERED_OUI_COUNT);
+                    break;
+                default:
+                    macs[i] = (BASE_OUI << NIC_BITS) + i;
+                    break;
+            }
+        }
+        return macs;
+    }
+
+    // Return count packed MAC addresses that are not in generate(count, seed)
+    // (the next count addresses of the same distribution).
+    public long[] generateMissing(int count, long seed)
+    {
+        long[] macs = generate(count * 2, seed);
+        return Arrays.copyOfRange(macs, count, count * 2);
+    }
+
+    // Return a random sample of size lookups drawn from macs
+    public static long[] sample(long[] macs, int size, long seed)
+    {
+        Random random = new Random(seed);
+        long[] result = new long[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            result[i] = macs[random.nextInt(macs.length)];
+        }
+        return result;
+    }
+}
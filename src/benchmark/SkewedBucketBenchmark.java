@@ -0,0 +1,70 @@
+package benchmark;
+
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Adversarial case for the bucket trees: every MAC address shares the same NIC
+// bytes (one bucket) and they are learned in ascending order, which degraded the
+// unbalanced tree into a linked list. Lookup cost should grow with log(size).
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkewedBucketBenchmark {
+
+    // NIC bytes shared by every generated MAC address (VRRP style 00:00:5E:00:01:xx)
+    static final long SHARED_NIC = 0x000101L;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    HashTable table;
+    byte[][] entries;
+    byte[][] lookups;
+    long[] packedLookups;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HashTableException
+    {
+        long[] macs = new long[size];
+        for ( int i = 0; i < size; i++ )
+        {
+            macs[i] = ((long) i << 24) | SHARED_NIC;
+        }
+        entries = HashTableBenchmark.toBytes(macs);
+        packedLookups = MacDistribution.sample(macs, HashTableBenchmark.LOOKUP_COUNT, HashTableBenchmark.SEED);
+        lookups = HashTableBenchmark.toBytes(packedLookups);
+        table = HashTableBenchmark.build(entries);
+    }
+
+    @Benchmark
+    public int findInterface() throws HashTableException
+    {
+        return table.findInterface(lookups[cursor++ & (HashTableBenchmark.LOOKUP_COUNT - 1)]);
+    }
+
+    // Deep bucket walk with the packed key: one long compare per tree level
+    @Benchmark
+    public int findInterfacePacked() throws HashTableException
+    {
+        return table.findInterface(packedLookups[cursor++ & (HashTableBenchmark.LOOKUP_COUNT - 1)]);
+    }
+
+    // Learn the whole bucket in ascending order
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public void orderedAdd(Blackhole blackhole) throws HashTableException
+    {
+        blackhole.consume(HashTableBenchmark.build(entries));
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import com.onqware.GroupMatcher;
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import com.onqware.MacTable;
+import com.onqware.MixingMacHasher;
+import com.onqware.PrimitiveHashTable;
+import com.onqware.SwissHashTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// findInterface hits and misses at high load factors: SwissHashTable with the
+// Vector API and with the SWAR matcher, PrimitiveHashTable (linear probing) and
+// HashRecord bucket trees (HashTable). The open addressing tables get exactly
+// 2^log2Slots slots filled to loadFactor; HashTable holds the same entries.
+// memoryUsage (bytes per slot): Swiss 13, linear 12. Build the vector/ source
+// root and run with --add-modules jdk.incubator.vector, otherwise the VECTOR
+// engine uses SWAR.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class SwissTableBenchmark {
+
+    // Number of lookup keys cycled through by each benchmark (power of two)
+    static final int LOOKUP_COUNT = 1 << 16;
+    static final long SEED = 42;
+
+    public enum Engine { SWISS_VECTOR, SWISS_SWAR, LINEAR, BUCKET_TREE }
+
+    @Param({"16", "23"})
+    public int log2Slots;
+
+    @Param({"0.75", "0.875", "0.94"})
+    public float loadFactor;
+
+    @Param({"SWISS_VECTOR", "SWISS_SWAR", "LINEAR", "BUCKET_TREE"})
+    public Engine engine;
+
+    @Param({"UNIFORM", "OUI_CLUSTERED"})
+    public MacDistribution distribution;
+
+    MacTable table;
+    long[] hits;
+    long[] misses;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws HashTableException
+    {
+        int slots = 1 << log2Slots;
+        int size = (int) (slots * loadFactor) - 1;
+        long[] macs = distribution.generate(size, SEED);
+        hits = MacDistribution.sample(macs, LOOKUP_COUNT, SEED);
+        misses = MacDistribution.sample(distribution.generateMissing(size, SEED), LOOKUP_COUNT, SEED);
+
+        switch ( engine )
+        {
+            case SWISS_VECTOR:
+                table = new SwissHashTable(size, new MixingMacHasher(SEED), loadFactor, GroupMatcher.vectorOrSwar());
+                break;
+            case SWISS_SWAR:
+                table = new SwissHashTable(size, new MixingMacHasher(SEED), loadFactor, GroupMatcher.SWAR);
+                break;
+            case LINEAR:
+                table = new PrimitiveHashTable(size, new MixingMacHasher(SEED), loadFactor);
+                break;
+            default:
+                table = new HashTable(size);
+                break;
+        }
+        for ( int i = 0; i < macs.length; i++ )
+        {
+            table.add(macs[i], i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public int findInterfaceHit() throws HashTableException
+    {
+        return table.findInterface(hits[cursor++ & (LOOKUP_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int findInterfaceMiss() throws HashTableException
+    {
+        return table.findInterface(misses[cursor++ & (LOOKUP_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,25 @@
+package com.onqware;
+
+// Reusable buffer that ChangeLog.read copies events into.
+// Event i has sequence (sequence + i) for i < count.
+public class ChangeBatch {
+
+    public final int[] types;
+    public final long[] macs;
+    public final int[] interfaceValues;
+    public long sequence;
+    public int count;
+
+    public ChangeBatch(int capacity)
+    {
+        types = new int[capacity];
+        macs = new long[capacity];
+        interfaceValues = new int[capacity];
+    }
+
+    // Return the maximum number of events read at once
+    public int capacity()
+    {
+        return macs.length;
+    }
+}
@@ -0,0 +1,116 @@
+package com.onqware;
+
+import java.lang.invoke.VarHandle;
+
+// Sequence numbered ring buffer of table changes for replicating a HashTable
+// to peer bridge instances (see HashTable.setChangeLog and ChangeLogReplica).
+// - One writer: the thread updating the table appends an event per change.
+//   Appending never waits for readers; old events are simply overwritten.
+// - Any number of readers copy events out in batches from the sequence they
+//   need next. A reader that fell capacity events or more behind gets OVERRUN
+//   (its oldest event's slot is the next one the writer overwrites) and has to
+//   resync from a snapshot (ForwardingSnapshot.sequence()).
+// An event is one long (type in bits 63-48, MAC address in bits 47-0) and one
+// int (interface value) in two primitive arrays: no allocation per event.
+public class ChangeLog {
+
+    // Event types
+    public static final int ADD = 0;
+    public static final int UPDATE = 1;
+    public static final int REMOVE = 2;
+    public static final int CLEAR = 3;
+
+    // read() result when the requested events were overwritten
+    public static final int OVERRUN = -1;
+
+    private static final int TYPE_SHIFT = 48;
+
+    private final long[] events;
+    private final int[] values;
+    private final int mask;
+
+    // Sequence of the next event to write (number of events ever appended).
+    // Written by the writer only; events below it are complete.
+    private volatile long published;
+
+    // Keep the last capacity events (rounded up to a power of two)
+    public ChangeLog(int capacity)
+    {
+        if ( capacity < 1 || capacity > PrimitiveHashTable.MAX_CAPACITY )
+        {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if ( size < capacity )
+        {
+            size <<= 1;
+        }
+        events = new long[size];
+        values = new int[size];
+        mask = size - 1;
+    }
+
+    // Return the number of events kept
+    public int capacity()
+    {
+        return events.length;
+    }
+
+    // Return the sequence the next event will get
+    public long sequence()
+    {
+        return published;
+    }
+
+    // Append an event (writer thread only)
+    void append(int type, long mac, int interfaceValue)
+    {
+        long sequence = published;
+        int slot = (int) sequence & mask;
+        // The slot still holds event sequence - capacity. Order the publish of
+        // sequence before overwriting it: a reader that copied any part of the new
+        // event then reads published >= sequence and treats its event as overrun.
+        VarHandle.storeStoreFence();
+        events[slot] = ((long) type << TYPE_SHIFT) | mac;
+        values[slot] = interfaceValue;
+        published = sequence + 1;
+    }
+
+    // Copy the events from sequence on (at most batch.capacity()) into batch.
+    // Return the number of events copied, 0 when there are none yet, or OVERRUN
+    // when some of them were already overwritten.
+    public int read(long sequence, ChangeBatch batch)
+    {
+        long end = published;
+        if ( sequence > end )
+        {
+            throw new IllegalArgumentException("sequence " + sequence + " is ahead of " + end);
+        }
+        if ( end - sequence >= events.length )
+        {
+            return OVERRUN;
+        }
+
+        int count = (int) Math.min(end - sequence, batch.capacity());
+        for ( int i = 0; i < count; i++ )
+        {
+            int slot = (int) (sequence + i) & mask;
+            long event = events[slot];
+            batch.types[i] = (int) (event >>> TYPE_SHIFT);
+            batch.macs[i] = event & MacAddress.MASK;
+            batch.interfaceValues[i] = values[slot];
+        }
+
+        // The copy is valid if the writer had not started overwriting it meanwhile.
+        // The slot of event published is being written, so it counts as overwritten.
+        VarHandle.acquireFence();
+        if ( published - events.length >= sequence )
+        {
+            return OVERRUN;
+        }
+
+        batch.sequence = sequence;
+        batch.count = count;
+        return count;
+    }
+}
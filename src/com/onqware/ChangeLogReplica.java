@@ -0,0 +1,81 @@
+package com.onqware;
+
+// Keeps a replica HashTable in step with a source table by applying the source
+// ChangeLog in batches. Call poll() regularly on the replica thread; when it
+// returns ChangeLog.OVERRUN the replica fell too far behind and must be
+// resynced from a snapshot of the source, after which polling continues with
+// the log tail from the snapshot sequence.
+// The replica should not age entries itself (setMaxAge(0)): removals made by
+// the source aging arrive as REMOVE events.
+public class ChangeLogReplica {
+
+    private final ChangeLog log;
+    private final HashTable replica;
+    private final ChangeBatch batch;
+    private long nextSequence;
+
+    // Follow log from its current sequence; replica is expected to hold the
+    // entries of the source up to that point (for example both empty).
+    public ChangeLogReplica(ChangeLog log, HashTable replica, int batchSize)
+    {
+        this.log = log;
+        this.replica = replica;
+        batch = new ChangeBatch(batchSize);
+        nextSequence = log.sequence();
+    }
+
+    // Return the sequence of the next event to apply
+    public long nextSequence()
+    {
+        return nextSequence;
+    }
+
+    // Apply one batch of pending events to the replica.
+    // Return the number of events applied or ChangeLog.OVERRUN.
+    public int poll() throws HashTableException
+    {
+        int count = log.read(nextSequence, batch);
+        if ( count == ChangeLog.OVERRUN )
+        {
+            return count;
+        }
+
+        for ( int i = 0; i < count; i++ )
+        {
+            switch ( batch.types[i] )
+            {
+                case ChangeLog.ADD:
+                case ChangeLog.UPDATE:
+                    replica.put(batch.macs[i], batch.interfaceValues[i]);
+                    break;
+                case ChangeLog.REMOVE:
+                    replica.remove(batch.macs[i]);
+                    break;
+                case ChangeLog.CLEAR:
+                    replica.initialize();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown change type " + batch.types[i]);
+            }
+        }
+        nextSequence += count;
+        return count;
+    }
+
+    // Replace the replica contents with snapshot (taken from the source table,
+    // see HashTable.snapshot) and continue from the snapshot sequence.
+    public void resync(ForwardingSnapshot snapshot) throws HashTableException
+    {
+        long[] macs = new long[snapshot.size()];
+        int[] interfaceValues = new int[snapshot.size()];
+        for ( int i = 0; i < macs.length; i++ )
+        {
+            macs[i] = snapshot.macAt(i);
+            interfaceValues[i] = snapshot.interfaceAt(i);
+        }
+
+        replica.initialize();
+        replica.bulkLoad(macs, interfaceValues, macs.length);
+        nextSequence = snapshot.sequence();
+    }
+}
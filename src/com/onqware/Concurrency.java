@@ -0,0 +1,12 @@
+package com.onqware;
+
+// How a MacTable may be shared between threads (see MacTableOptions)
+// - NONE: one thread only (or external locking)
+// - LOCKED: every operation holds the table lock
+// - STRIPED: lock free lookups and per stripe write locks (ConcurrentHashTable,
+//   OBJECTS memory mode only)
+public enum Concurrency {
+    NONE,
+    LOCKED,
+    STRIPED
+}
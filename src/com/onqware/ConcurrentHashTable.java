@@ -0,0 +1,364 @@
+package com.onqware;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread safe variant of HashTable for learning on ingress threads while
+// forwarding threads look up entries.
+// - Lookups take no locks: bucket roots are read from an AtomicReferenceArray and
+//   the tree below a root never changes.
+// - Writes lock only the stripe that owns the bucket (bucket index & stripe mask),
+//   so learners in different buckets do not contend.
+// Buckets are picked by a MacHasher (the NIC bytes by default, as in HashTable).
+// Nodes are immutable: add, put and remove build a new path from the bucket root
+// to the changed node (path copying), rebalancing the copies as an AVL tree, and
+// publish it with one write of the bucket root. A concurrent lookup sees either the
+// old or the new tree, and a bucket of n colliding entries (clustered OUIs under
+// one NIC value) is searched in O(log n). Each write allocates O(log n) nodes.
+public class ConcurrentHashTable implements MacTable {
+
+    // Largest number of buckets (the number of possible NIC values, as in HashTable)
+    public static final int LENGTH = 1 << 24;
+
+    // Number of buckets allocated when no expected capacity is given
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    // Number of write locks when not specified
+    static final int DEFAULT_STRIPES = 64;
+
+    // Immutable bucket tree node; height is the height of the subtree it roots
+    static final class Node {
+        final long key;
+        final BridgeEntry value;
+        final Node left;
+        final Node right;
+        final int height;
+
+        Node(long key, BridgeEntry value, Node left, Node right)
+        {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+    }
+
+    private final MacHasher hasher;
+    private final AtomicReferenceArray<Node> data;
+    private final int mask;
+    private final Object[] locks;
+    private final int lockMask;
+    private final LongAdder size = new LongAdder();
+
+    public ConcurrentHashTable()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_STRIPES);
+    }
+
+    // Create a table with at least bucketCount buckets (rounded up to a power of two,
+    // at most LENGTH) and stripes write locks (rounded up to a power of two).
+    public ConcurrentHashTable(int bucketCount, int stripes)
+    {
+        this(bucketCount, stripes, new NicMacHasher());
+    }
+
+    // Create a table as above that places entries with hasher, for example a seeded
+    // MixingMacHasher when the NIC bytes are not uniform.
+    public ConcurrentHashTable(int bucketCount, int stripes, MacHasher hasher)
+    {
+        this.hasher = hasher;
+        int capacity = powerOfTwo(bucketCount, LENGTH);
+        data = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+
+        locks = new Object[powerOfTwo(stripes, capacity)];
+        for ( int i = 0; i < locks.length; i++ )
+        {
+            locks[i] = new Object();
+        }
+        lockMask = locks.length - 1;
+    }
+
+    // Return the smallest power of two >= value, bounded by 1 and max
+    private static int powerOfTwo(int value, int max)
+    {
+        int result = 1;
+        while ( result < value && result < max )
+        {
+            result <<= 1;
+        }
+        return result;
+    }
+
+    // Use the hasher (by default the NIC bytes) to calculate the hash key
+    // (same as HashTable.getHash)
+    public int getHash(byte[] macAddress)
+    {
+        return hasher.hash(MacAddress.toLong(macAddress)) & (LENGTH - 1);
+    }
+
+    // Return the bucket index of the packed MAC address
+    private int indexOf(long mac)
+    {
+        return hasher.hash(mac) & mask;
+    }
+
+    // Return the number of entries in the table
+    public int size()
+    {
+        return size.intValue();
+    }
+
+    // Insert a copy of the entry. MAC addresses must be unique.
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        BridgeEntry entry = new BridgeEntry();
+        System.arraycopy(newEntry.macAddress, 0, entry.macAddress, 0, BridgeEntry.NUM_FIELDS);
+        entry.interfaceValue = newEntry.interfaceValue;
+
+        insert(MacAddress.toLong(entry.macAddress), entry);
+    }
+
+    // Insert the packed MAC address and interface value. MAC addresses must be unique.
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        insert(mac, newEntry(mac, interfaceValue));
+    }
+
+    private static BridgeEntry newEntry(long mac, int interfaceValue)
+    {
+        BridgeEntry entry = new BridgeEntry();
+        MacAddress.toBytes(mac, entry.macAddress);
+        entry.interfaceValue = interfaceValue;
+        return entry;
+    }
+
+    // Publish a new bucket tree holding the fully built entry under the stripe lock.
+    // The volatile write of the bucket root publishes the new nodes to readers.
+    private void insert(long mac, BridgeEntry entry) throws HashTableException
+    {
+        int index = indexOf(mac);
+
+        synchronized ( locks[index & lockMask] )
+        {
+            Node root = data.get(index);
+            if ( findNode(root, mac) != null )
+            {
+                // UNSUPPORTED USE CASE
+                throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
+            }
+            data.set(index, insertNode(root, mac, entry));
+            size.increment();
+        }
+    }
+
+    // Insert the packed MAC address, or if it is already learned (station moved)
+    // replace its node with one holding the new interface value.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        BridgeEntry entry = newEntry(mac, interfaceValue);
+
+        int index = indexOf(mac);
+        synchronized ( locks[index & lockMask] )
+        {
+            Node root = data.get(index);
+            Node previous = findNode(root, mac);
+            data.set(index, insertNode(root, mac, entry));
+            if ( previous != null )
+            {
+                return previous.value.interfaceValue;
+            }
+            size.increment();
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+    }
+
+    // Remove the entry for the packed MAC address.
+    // Return the removed BridgeEntry or null if the MAC address is not in the table.
+    public BridgeEntry remove(long mac)
+    {
+        int index = indexOf(mac);
+        synchronized ( locks[index & lockMask] )
+        {
+            Node root = data.get(index);
+            Node removed = findNode(root, mac);
+            if ( removed == null )
+            {
+                return null;
+            }
+            data.set(index, removeNode(root, mac));
+            size.decrement();
+            return removed.value;
+        }
+    }
+
+    private static int height(Node node)
+    {
+        return node != null ? node.height : 0;
+    }
+
+    // Return the node for key in the tree at root or null
+    private static Node findNode(Node root, long key)
+    {
+        while ( root != null && root.key != key )
+        {
+            root = key > root.key ? root.right : root.left;
+        }
+        return root;
+    }
+
+    // Return a copy of the tree at root with key mapped to value (added or replaced).
+    // Nodes off the path to key are shared with the original tree.
+    private static Node insertNode(Node root, long key, BridgeEntry value)
+    {
+        if ( root == null )
+        {
+            return new Node(key, value, null, null);
+        }
+        if ( key == root.key )
+        {
+            return new Node(key, value, root.left, root.right);
+        }
+        if ( key > root.key )
+        {
+            return balance(root.key, root.value, root.left, insertNode(root.right, key, value));
+        }
+        return balance(root.key, root.value, insertNode(root.left, key, value), root.right);
+    }
+
+    // Return a copy of the tree at root (which holds key) without key
+    private static Node removeNode(Node root, long key)
+    {
+        if ( key > root.key )
+        {
+            return balance(root.key, root.value, root.left, removeNode(root.right, key));
+        }
+        if ( key < root.key )
+        {
+            return balance(root.key, root.value, removeNode(root.left, key), root.right);
+        }
+        if ( root.left == null || root.right == null )
+        {
+            return ( root.left != null ) ? root.left : root.right;
+        }
+
+        // Smallest node of the right subtree takes the place of root
+        Node successor = root.right;
+        while ( successor.left != null )
+        {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, root.left, removeSmallest(root.right));
+    }
+
+    // Return a copy of the tree at node without its smallest key
+    private static Node removeSmallest(Node node)
+    {
+        if ( node.left == null )
+        {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeSmallest(node.left), node.right);
+    }
+
+    // Return a node for key and value over left and right, rotated so that the
+    // heights of its subtrees differ by at most one (they differ by at most two
+    // after one insert or remove)
+    private static Node balance(long key, BridgeEntry value, Node left, Node right)
+    {
+        if ( height(left) > height(right) + 1 )
+        {
+            if ( height(left.left) >= height(left.right) )
+            {
+                return new Node(left.key, left.value, left.left, new Node(key, value, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.key, pivot.value,
+                            new Node(left.key, left.value, left.left, pivot.left),
+                            new Node(key, value, pivot.right, right));
+        }
+        if ( height(right) > height(left) + 1 )
+        {
+            if ( height(right.right) >= height(right.left) )
+            {
+                return new Node(right.key, right.value, new Node(key, value, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.key, pivot.value,
+                            new Node(key, value, left, pivot.left),
+                            new Node(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node(key, value, left, right);
+    }
+
+    // Return a copy of the BridgeEntry at the specified macAddress, or null.
+    public BridgeEntry find(byte[] macAddress)
+    {
+        return find(MacAddress.toLong(macAddress));
+    }
+
+    // Return a copy of the BridgeEntry for the packed MAC address, or null. Takes no
+    // locks. (The stored entry is shared with other readers; use findInterface on the
+    // hot path to avoid the copy.)
+    public BridgeEntry find(long mac)
+    {
+        Node node = findNode(data.get(indexOf(mac)), mac);
+        return node != null ? newEntry(mac, node.value.interfaceValue) : null;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found. Takes no locks.
+    public int findInterface(long mac)
+    {
+        Node node = findNode(data.get(indexOf(mac)), mac);
+        return node != null ? node.value.interfaceValue : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count. Takes no locks.
+    public void findInterfaces(long[] macs, int[] outIfaces, int count)
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            outIfaces[i] = findInterface(macs[i]);
+        }
+    }
+
+    // Pass every entry to the consumer. Takes no locks: entries added or removed
+    // during the walk may or may not be seen, every other entry is seen once.
+    public void forEach(LongIntConsumer consumer)
+    {
+        Node[] stack = new Node[16];
+        for ( int index = 0; index < data.length(); index++ )
+        {
+            int top = 0;
+            Node node = data.get(index);
+            while ( node != null || top > 0 )
+            {
+                // In-order walk of the bucket tree
+                while ( node != null )
+                {
+                    if ( top == stack.length )
+                    {
+                        stack = Arrays.copyOf(stack, top << 1);
+                    }
+                    stack[top++] = node;
+                    node = node.left;
+                }
+                node = stack[--top];
+                consumer.accept(node.key, node.value.interfaceValue);
+                node = node.right;
+            }
+        }
+    }
+}
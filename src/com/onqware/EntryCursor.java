@@ -0,0 +1,96 @@
+package com.onqware;
+
+import java.util.ConcurrentModificationException;
+
+// Reusable cursor over the entries of a HashTable, optionally restricted to one
+// interface value or one OUI (upper 3 bytes of the MAC address).
+// Walks the ring of all entries (or the ring of the interface), so a pass costs
+// time proportional to the entries visited, not to the number of buckets, and
+// allocates nothing:
+//
+//   EntryCursor cursor = table.cursorForInterface(port);
+//   while ( cursor.next() ) { export(cursor.mac(), cursor.interfaceValue()); }
+//
+// The table must not be changed while a pass is in progress (next throws
+// ConcurrentModificationException); rewind starts a new pass.
+public final class EntryCursor {
+
+    // No interface / OUI restriction
+    static final int ANY = -1;
+
+    private final HashTable table;
+    private final int interfaceValue;
+    private final int oui;
+    // Walk the ring of interfaceValue rather than the ring of all entries
+    private final boolean interfaceRing;
+
+    private HashRecord node;
+    private int remaining;
+    private int expectedModifications;
+
+    EntryCursor(HashTable table, int interfaceValue, int oui)
+    {
+        this.table = table;
+        this.interfaceValue = interfaceValue;
+        this.oui = oui;
+        this.interfaceRing = interfaceValue != ANY && HashTable.isTrackedInterface(interfaceValue);
+        rewind();
+    }
+
+    // Start a new pass from the first entry
+    public void rewind()
+    {
+        node = null;
+        remaining = interfaceRing ? table.countByInterface(interfaceValue) : table.size();
+        expectedModifications = table.modifications;
+    }
+
+    // Move to the next matching entry. Return false when the pass is complete.
+    public boolean next()
+    {
+        if ( table.modifications != expectedModifications )
+        {
+            throw new ConcurrentModificationException();
+        }
+
+        while ( remaining > 0 )
+        {
+            remaining--;
+            if ( node == null )
+            {
+                node = interfaceRing ? table.firstOnInterface(interfaceValue) : table.firstEntry();
+            }
+            else
+            {
+                node = interfaceRing ? node.interfaceNext : node.clockNext;
+            }
+
+            if ( (interfaceValue == ANY || node.value.interfaceValue == interfaceValue)
+                    && (oui == ANY || (node.key >>> 24) == oui) )
+            {
+                return true;
+            }
+        }
+        node = null;
+        return false;
+    }
+
+    // Return the packed MAC address of the current entry
+    public long mac()
+    {
+        return node.key;
+    }
+
+    // Return the interface value of the current entry
+    public int interfaceValue()
+    {
+        return node.value.interfaceValue;
+    }
+
+    // Return the stored BridgeEntry of the current entry (shared with the table,
+    // must not be modified)
+    public BridgeEntry entry()
+    {
+        return node.value;
+    }
+}
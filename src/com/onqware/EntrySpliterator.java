@@ -0,0 +1,104 @@
+package com.onqware;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Spliterator over the stored entries of a HashTable (see HashTable.spliterator).
+// Covers a range of buckets and splits it in half, so parallel streams hand each
+// worker a disjoint part of the bucket array. The bucket array grows with the
+// number of entries, so empty buckets skipped are bounded by the load factor.
+// While the table is resizing, bucket indexes below oldBuckets.length are the old
+// buckets and the rest are the new ones, as if the two arrays were one.
+// Elements are the BridgeEntry objects stored in the table: nothing is copied,
+// and they must not be modified.
+final class EntrySpliterator implements Spliterator<BridgeEntry> {
+
+    // Ranges with fewer buckets are not split
+    private static final int MIN_SPLIT_BUCKETS = 1 << 10;
+
+    // Bucket array used when the table is not resizing
+    static final HashRecord[] NO_BUCKETS = new HashRecord[0];
+
+    private final HashTable table;
+    private final HashRecord[] oldBuckets;
+    private final HashRecord[] buckets;
+    private final int expectedModifications;
+    private int bucket;
+    private final int end;
+    // In-order walk state of the current bucket tree
+    private HashRecord[] stack = new HashRecord[16];
+    private int top;
+    private HashRecord node;
+
+    EntrySpliterator(HashTable table, HashRecord[] oldBuckets, HashRecord[] buckets, int bucket, int end)
+    {
+        this.table = table;
+        this.oldBuckets = oldBuckets;
+        this.buckets = buckets;
+        this.expectedModifications = table.modifications;
+        this.bucket = bucket;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super BridgeEntry> action)
+    {
+        if ( table.modifications != expectedModifications )
+        {
+            throw new ConcurrentModificationException();
+        }
+
+        while ( node == null && top == 0 )
+        {
+            if ( bucket >= end )
+            {
+                return false;
+            }
+            node = ( bucket < oldBuckets.length ) ? oldBuckets[bucket] : buckets[bucket - oldBuckets.length];
+            bucket++;
+        }
+
+        while ( node != null )
+        {
+            if ( top == stack.length )
+            {
+                stack = Arrays.copyOf(stack, top << 1);
+            }
+            stack[top++] = node;
+            node = node.left;
+        }
+        HashRecord current = stack[--top];
+        stack[top] = null;
+        node = current.right;
+        action.accept(current.value);
+        return true;
+    }
+
+    @Override
+    public Spliterator<BridgeEntry> trySplit()
+    {
+        // Only split before the walk of a bucket has started
+        if ( node != null || top > 0 || end - bucket < MIN_SPLIT_BUCKETS )
+        {
+            return null;
+        }
+        int middle = (bucket + end) >>> 1;
+        EntrySpliterator prefix = new EntrySpliterator(table, oldBuckets, buckets, bucket, middle);
+        bucket = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        return (long) table.size() * (end - bucket) / Math.max(oldBuckets.length + buckets.length, 1);
+    }
+
+    @Override
+    public int characteristics()
+    {
+        return DISTINCT | NONNULL;
+    }
+}
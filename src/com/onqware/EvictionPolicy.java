@@ -0,0 +1,11 @@
+package com.onqware;
+
+// What HashTable does with a new entry when an entry limit is reached
+// (see HashTable.setMaxEntries and setMaxEntriesPerInterface)
+// - REFUSE_NEW: keep the learned entries and refuse the new one
+// - CLOCK: evict an entry not looked up since the clock hand last passed it
+//   (approximate least recently used) and learn the new one
+public enum EvictionPolicy {
+    REFUSE_NEW,
+    CLOCK
+}
@@ -0,0 +1,175 @@
+package com.onqware;
+
+import java.util.Arrays;
+
+// Immutable, densely packed copy of a table for the forwarding path.
+// Entries are held in two parallel arrays sorted by packed MAC address, so a
+// lookup is a binary search over a long[] with no locks, no nodes to follow
+// and nothing to allocate. Build with HashTable.snapshot().
+public final class ForwardingSnapshot {
+
+    // Ranges shorter than this are sorted by insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final long[] keys;
+    private final int[] values;
+    private final long sequence;
+
+    // Take ownership of the arrays and sort them by key
+    ForwardingSnapshot(long[] keys, int[] values)
+    {
+        this(keys, values, 0);
+    }
+
+    // Snapshot of a table whose change log was at sequence when it was taken
+    ForwardingSnapshot(long[] keys, int[] values, long sequence)
+    {
+        sort(keys, values, 0, keys.length - 1);
+        this.keys = keys;
+        this.values = values;
+        this.sequence = sequence;
+    }
+
+    // Unsorted copy of the entries of a table, cheap enough to take while the
+    // table is locked; build() does the O(n log n) sort after the lock is released.
+    static final class Entries {
+        final long[] keys;
+        final int[] values;
+        final long sequence;
+
+        Entries(long[] keys, int[] values, long sequence)
+        {
+            this.keys = keys;
+            this.values = values;
+            this.sequence = sequence;
+        }
+
+        // Sort the entries into a snapshot (takes ownership of the arrays)
+        ForwardingSnapshot build()
+        {
+            return new ForwardingSnapshot(keys, values, sequence);
+        }
+    }
+
+    // Return the ChangeLog sequence of the first change not included in the
+    // snapshot (0 when the table had no change log)
+    public long sequence()
+    {
+        return sequence;
+    }
+
+    // Return the number of entries
+    public int size()
+    {
+        return keys.length;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac)
+    {
+        int index = Arrays.binarySearch(keys, mac);
+        return index >= 0 ? values[index] : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Return the packed MAC address of entry index (ascending order)
+    public long macAt(int index)
+    {
+        return keys[index];
+    }
+
+    // Return the interface value of entry index
+    public int interfaceAt(int index)
+    {
+        return values[index];
+    }
+
+    // Pass the entries with fromMac <= MAC address <= toMac to the consumer
+    // in ascending MAC address order
+    public void forEachInRange(long fromMac, long toMac, LongIntConsumer consumer)
+    {
+        int index = Arrays.binarySearch(keys, fromMac);
+        if ( index < 0 )
+        {
+            index = -index - 1;
+        }
+        for ( ; index < keys.length && keys[index] <= toMac; index++ )
+        {
+            consumer.accept(keys[index], values[index]);
+        }
+    }
+
+    // Sort keys[lo..hi] ascending, moving values along with their keys (quicksort)
+    static void sort(long[] keys, int[] values, int lo, int hi)
+    {
+        while ( hi - lo >= INSERTION_SORT_THRESHOLD )
+        {
+            long pivot = medianOfThree(keys[lo], keys[(lo + hi) >>> 1], keys[hi]);
+            int i = lo;
+            int j = hi;
+            while ( i <= j )
+            {
+                while ( keys[i] < pivot )
+                {
+                    i++;
+                }
+                while ( keys[j] > pivot )
+                {
+                    j--;
+                }
+                if ( i <= j )
+                {
+                    swap(keys, values, i++, j--);
+                }
+            }
+
+            // Recurse into the smaller part, loop on the larger one
+            if ( j - lo < hi - i )
+            {
+                sort(keys, values, lo, j);
+                lo = i;
+            }
+            else
+            {
+                sort(keys, values, i, hi);
+                hi = j;
+            }
+        }
+
+        for ( int i = lo + 1; i <= hi; i++ )
+        {
+            long key = keys[i];
+            int value = values[i];
+            int j = i - 1;
+            while ( j >= lo && keys[j] > key )
+            {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+
+    private static long medianOfThree(long a, long b, long c)
+    {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(long[] keys, int[] values, int i, int j)
+    {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,96 @@
+package com.onqware;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Bridge processing stage working directly on received Ethernet frames.
+// For every frame the source MAC address is learned on the ingress interface
+// (a moved station is updated) and the destination MAC address is looked up
+// to pick the egress interface. MAC addresses are read in place from the
+// buffer; nothing is allocated per frame (only when the table grows).
+//
+// The buffer holds frames back to back from position to limit, each preceded by
+// its length as a 2 byte big-endian value:
+//   [length][destination MAC (6)][source MAC (6)][EtherType (2)][payload ...]
+public class FrameProcessor {
+
+    // Egress value: destination unknown or a group address, send to all interfaces
+    public static final int FLOOD = BridgeEntry.INVALID_INTERFACE_VALUE;
+    // Egress value: do not forward (runt frame, or destination is on the ingress interface)
+    public static final int DROP = -2;
+
+    // Size of the length prefix of each frame
+    static final int LENGTH_PREFIX = 2;
+    // Offsets of the address fields within a frame
+    static final int DESTINATION_OFFSET = 0;
+    static final int SOURCE_OFFSET = 6;
+    // Smallest frame holding both addresses and the EtherType
+    static final int MIN_FRAME_LENGTH = 14;
+    // Individual/Group bit of a packed MAC address (lowest bit of byte 0)
+    static final long GROUP_BIT = 1L << 40;
+
+    private final PrimitiveHashTable table;
+
+    public FrameProcessor(PrimitiveHashTable table)
+    {
+        this.table = table;
+    }
+
+    // Return the table that is learned into and looked up
+    public PrimitiveHashTable getTable()
+    {
+        return table;
+    }
+
+    // Process frames from the buffer position until the buffer is exhausted or
+    // egressInterfaces is full: egressInterfaces[i] receives the interface for
+    // frame i, FLOOD or DROP. The position is moved past the processed frames.
+    // Return the number of frames processed.
+    public int process(ByteBuffer frames, int ingressInterface, int[] egressInterfaces) throws HashTableException
+    {
+        int position = frames.position();
+        int limit = frames.limit();
+        int count = 0;
+
+        while ( count < egressInterfaces.length && position + LENGTH_PREFIX <= limit )
+        {
+            int length = frames.getShort(position) & 0xFFFF;
+            if ( frames.order() != ByteOrder.BIG_ENDIAN )
+            {
+                length = Short.reverseBytes((short) length) & 0xFFFF;
+            }
+            int frame = position + LENGTH_PREFIX;
+            if ( frame + length > limit )
+            {
+                break; // incomplete frame, left in the buffer
+            }
+
+            egressInterfaces[count++] = ( length < MIN_FRAME_LENGTH ) ? DROP : forward(frames, frame, ingressInterface);
+            position = frame + length;
+        }
+
+        frames.position(position);
+        return count;
+    }
+
+    // Learn the source and return the egress interface for the frame starting at offset
+    private int forward(ByteBuffer frames, int offset, int ingressInterface) throws HashTableException
+    {
+        long source = MacAddress.toLong(frames, offset + SOURCE_OFFSET);
+        long destination = MacAddress.toLong(frames, offset + DESTINATION_OFFSET);
+
+        // Group addresses are never valid sources
+        if ( (source & GROUP_BIT) == 0 )
+        {
+            table.put(source, ingressInterface);
+        }
+
+        if ( (destination & GROUP_BIT) != 0 )
+        {
+            return FLOOD;
+        }
+
+        int egressInterface = table.findInterface(destination);
+        return ( egressInterface == ingressInterface ) ? DROP : egressInterface;
+    }
+}
@@ -0,0 +1,11 @@
+package com.onqware;
+
+public class FullHashTableException extends HashTableException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FullHashTableException( )
+    {
+        super( "Entry limit reached." );
+    }
+}
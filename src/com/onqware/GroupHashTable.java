@@ -0,0 +1,355 @@
+package com.onqware;
+
+import java.util.Arrays;
+
+// Table of group (multicast) MAC addresses, I/G bit set in byte 0, mapping each
+// to a set of egress interfaces (ports) instead of a single interface value.
+// Open addressing with linear probing over parallel primitive arrays:
+// - keys: packed 48-bit group MAC address (see MacAddress), EMPTY_KEY marks a free slot
+// - inlinePorts: bitset of ports 0-63, held in the slot
+// - blocks: for groups with a port >= 64, index of their block of words in the
+//   shared pool (ports 64 .. maxPorts - 1), NO_BLOCK otherwise
+// Blocks are recycled through a free list, so after warm up neither port
+// updates nor lookups allocate.
+public class GroupHashTable {
+
+    // Marks a free slot
+    static final long EMPTY_KEY = PrimitiveHashTable.EMPTY_KEY;
+    // Group (I/G) bit of byte 0 in a packed MAC address
+    public static final long GROUP_BIT = 1L << 40;
+    static final int NO_BLOCK = -1;
+    // Ports held inline in the slot
+    static final int INLINE_PORTS = Long.SIZE;
+
+    private final int maxPorts;
+    // Pool words per block (ports INLINE_PORTS .. maxPorts - 1)
+    private final int blockWords;
+
+    private long[] keys;
+    private long[] inlinePorts;
+    private int[] blocks;
+    private int mask;
+    private int size;
+    private int growThreshold;
+
+    private long[] pool = new long[0];
+    private int[] freeBlocks = new int[0];
+    private int freeCount;
+    private int blockCount;
+
+    // Create a table for ports 0 .. maxPorts - 1
+    public GroupHashTable(int maxPorts)
+    {
+        this(PrimitiveHashTable.MIN_CAPACITY, maxPorts);
+    }
+
+    // Create a table able to hold expectedGroups without growing, for ports 0 .. maxPorts - 1
+    public GroupHashTable(int expectedGroups, int maxPorts)
+    {
+        if ( maxPorts < 1 )
+        {
+            throw new IllegalArgumentException("maxPorts " + maxPorts);
+        }
+        this.maxPorts = maxPorts;
+        blockWords = Math.max(0, (maxPorts - INLINE_PORTS + Long.SIZE - 1) / Long.SIZE);
+        allocate(PrimitiveHashTable.capacityFor(expectedGroups));
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        inlinePorts = new long[capacity];
+        blocks = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        mask = capacity - 1;
+        size = 0;
+        growThreshold = (int) (capacity * PrimitiveHashTable.LOAD_FACTOR);
+    }
+
+    // Return true if the packed MAC address is a group address
+    public static boolean isGroup(long mac)
+    {
+        return (mac & GROUP_BIT) != 0;
+    }
+
+    // Return the number of groups
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of ports a group can hold
+    public int maxPorts()
+    {
+        return maxPorts;
+    }
+
+    private int slotFor(long mac)
+    {
+        return PrimitiveHashTable.DEFAULT_HASHER.hash(mac) & mask;
+    }
+
+    // Return the slot of the group or -1
+    private int findSlot(long mac)
+    {
+        int slot = slotFor(mac);
+        long current;
+        while ( (current = keys[slot]) != EMPTY_KEY )
+        {
+            if ( current == mac )
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Add the port to the group, creating the group if needed.
+    // Return true if the port was not in the group yet.
+    public boolean addPort(long mac, int port) throws HashTableException
+    {
+        if ( !isGroup(mac) )
+        {
+            // UNSUPPORTED USE CASE
+            throw new UnsupportedFeatureHashTableException("Only group MAC addresses have port sets." );
+        }
+        checkPort(port);
+
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            if ( size >= growThreshold )
+            {
+                grow();
+            }
+            slot = slotFor(mac);
+            while ( keys[slot] != EMPTY_KEY )
+            {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = mac;
+            inlinePorts[slot] = 0;
+            blocks[slot] = NO_BLOCK;
+            size++;
+        }
+
+        if ( port < INLINE_PORTS )
+        {
+            long before = inlinePorts[slot];
+            inlinePorts[slot] = before | (1L << port);
+            return inlinePorts[slot] != before;
+        }
+
+        if ( blocks[slot] == NO_BLOCK )
+        {
+            blocks[slot] = allocateBlock();
+        }
+        int word = blocks[slot] * blockWords + ((port - INLINE_PORTS) >>> 6);
+        long before = pool[word];
+        pool[word] = before | (1L << port);
+        return pool[word] != before;
+    }
+
+    // Remove the port from the group; a group left without ports is removed.
+    // Return true if the port was in the group.
+    public boolean removePort(long mac, int port) throws HashTableException
+    {
+        checkPort(port);
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            return false;
+        }
+
+        boolean removed;
+        if ( port < INLINE_PORTS )
+        {
+            removed = (inlinePorts[slot] & (1L << port)) != 0;
+            inlinePorts[slot] &= ~(1L << port);
+        }
+        else if ( blocks[slot] != NO_BLOCK )
+        {
+            int word = blocks[slot] * blockWords + ((port - INLINE_PORTS) >>> 6);
+            removed = (pool[word] & (1L << port)) != 0;
+            pool[word] &= ~(1L << port);
+        }
+        else
+        {
+            removed = false;
+        }
+
+        if ( inlinePorts[slot] == 0 && blockEmpty(blocks[slot]) )
+        {
+            removeSlot(slot);
+        }
+        return removed;
+    }
+
+    // Remove the group and all its ports. Return true if it was in the table.
+    public boolean removeGroup(long mac)
+    {
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    // Return ports 0-63 of the group as a bitmask (0 when the group is unknown).
+    // Enough on its own for bridges with up to 64 ports.
+    public long findPortMask(long mac)
+    {
+        int slot = findSlot(mac);
+        return slot >= 0 ? inlinePorts[slot] : 0;
+    }
+
+    // Copy the ports of the group into ports (capacity at least maxPorts()).
+    // Return false and leave ports empty when the group is unknown.
+    public boolean findPorts(long mac, PortSet ports)
+    {
+        ports.clear();
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            return false;
+        }
+
+        ports.words[0] = inlinePorts[slot];
+        ports.usedWords = 1;
+        if ( blocks[slot] != NO_BLOCK )
+        {
+            System.arraycopy(pool, blocks[slot] * blockWords, ports.words, 1, blockWords);
+            ports.usedWords += blockWords;
+        }
+        return true;
+    }
+
+    // Return the number of ports in the group (0 when the group is unknown)
+    public int portCount(long mac)
+    {
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            return 0;
+        }
+
+        int count = Long.bitCount(inlinePorts[slot]);
+        if ( blocks[slot] != NO_BLOCK )
+        {
+            int start = blocks[slot] * blockWords;
+            for ( int i = start; i < start + blockWords; i++ )
+            {
+                count += Long.bitCount(pool[i]);
+            }
+        }
+        return count;
+    }
+
+    private void checkPort(int port) throws HashTableException
+    {
+        if ( port < 0 || port >= maxPorts )
+        {
+            throw new IndexOutOfBoundHashTableException();
+        }
+    }
+
+    private boolean blockEmpty(int block)
+    {
+        if ( block == NO_BLOCK )
+        {
+            return true;
+        }
+        int start = block * blockWords;
+        for ( int i = start; i < start + blockWords; i++ )
+        {
+            if ( pool[i] != 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Return a cleared block from the free list, or a new one at the end of the pool
+    private int allocateBlock()
+    {
+        if ( freeCount > 0 )
+        {
+            return freeBlocks[--freeCount];
+        }
+        if ( (blockCount + 1) * blockWords > pool.length )
+        {
+            pool = Arrays.copyOf(pool, Math.max(blockWords, pool.length << 1));
+        }
+        return blockCount++;
+    }
+
+    private void freeBlock(int block)
+    {
+        Arrays.fill(pool, block * blockWords, (block + 1) * blockWords, 0);
+        if ( freeCount == freeBlocks.length )
+        {
+            freeBlocks = Arrays.copyOf(freeBlocks, Math.max(16, freeCount << 1));
+        }
+        freeBlocks[freeCount++] = block;
+    }
+
+    // Empty the slot (backward shift deletion, see PrimitiveHashTable) and free its block
+    private void removeSlot(int slot)
+    {
+        if ( blocks[slot] != NO_BLOCK )
+        {
+            freeBlock(blocks[slot]);
+        }
+
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long key;
+        while ( (key = keys[next]) != EMPTY_KEY )
+        {
+            if ( ((next - slotFor(key)) & mask) >= ((next - hole) & mask) )
+            {
+                keys[hole] = key;
+                inlinePorts[hole] = inlinePorts[next];
+                blocks[hole] = blocks[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY_KEY;
+        size--;
+    }
+
+    // Double the number of slots and re-insert all groups (blocks stay in place)
+    private void grow() throws HashTableException
+    {
+        if ( keys.length >= PrimitiveHashTable.MAX_CAPACITY )
+        {
+            throw new IndexOutOfBoundHashTableException();
+        }
+
+        long[] oldKeys = keys;
+        long[] oldInlinePorts = inlinePorts;
+        int[] oldBlocks = blocks;
+        allocate(oldKeys.length << 1);
+
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldKeys[i] != EMPTY_KEY )
+            {
+                int slot = slotFor(oldKeys[i]);
+                while ( keys[slot] != EMPTY_KEY )
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                inlinePorts[slot] = oldInlinePorts[i];
+                blocks[slot] = oldBlocks[i];
+                size++;
+            }
+        }
+    }
+}
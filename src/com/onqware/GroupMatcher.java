@@ -0,0 +1,28 @@
+package com.onqware;
+
+// Compares a group of SwissHashTable control bytes (GROUP_SIZE bytes starting at
+// offset) at once. Each method returns a bit mask with bit i set when byte
+// offset + i matches.
+// - VECTOR: jdk.incubator.vector (one 128-bit compare), null when the module or
+//   the vector/ source root is not available (see vector/README.md)
+// - SWAR: two 64-bit words compared with shifts, adds and masks
+public interface GroupMatcher {
+
+    GroupMatcher SWAR = new SwarGroupMatcher();
+    GroupMatcher VECTOR = SwarGroupMatcher.loadVectorMatcher();
+
+    // Bytes equal to the 7-bit hash fragment h2
+    int matchHash(byte[] control, int offset, byte h2);
+
+    // EMPTY bytes
+    int matchEmpty(byte[] control, int offset);
+
+    // EMPTY or DELETED bytes (slots an insert may use)
+    int matchAvailable(byte[] control, int offset);
+
+    // Return VECTOR when available, otherwise SWAR
+    static GroupMatcher vectorOrSwar()
+    {
+        return VECTOR != null ? VECTOR : SWAR;
+    }
+}
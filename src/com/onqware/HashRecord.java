@@ -1,10 +1,27 @@
 package com.onqware;
 
-// A linked list node where
+// A bucket tree node where
+// - key: value.macAddress as a packed 48-bit value (see MacAddress), cached for comparisons
 // - value: BridgeEntry
-// - next: Pointer to another linked list node
+// - left/right: Pointers to the child nodes of the bucket tree
+// - height: Height of the subtree rooted at this node (AVL balancing)
+// - lastSeen: time the entry was last learned (see HashTable clock)
+// - referenced: set when the entry is looked up or re-learned, cleared by the CLOCK eviction hand
+// - clockPrev/clockNext: ring of all entries of the table (eviction order)
+// - interfacePrev/interfaceNext: ring of the entries on the same interface
+// - linkedInterface: interface value the node was linked under (the ring it is in),
+//   kept apart from value.interfaceValue, which the owner of the entry may change
 public class HashRecord {
+    public long key = 0;
     public BridgeEntry value = null;
+    public long lastSeen = 0;
     public HashRecord left = null;
     public HashRecord right = null;
+    public int height = 1;
+    public boolean referenced = false;
+    public HashRecord clockPrev = null;
+    public HashRecord clockNext = null;
+    public HashRecord interfacePrev = null;
+    public HashRecord interfaceNext = null;
+    public int linkedInterface = BridgeEntry.INVALID_INTERFACE_VALUE;
 }
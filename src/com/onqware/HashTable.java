@@ -1,139 +1,404 @@
 package com.onqware;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 // Hash table implementation specific to storing BridgeEntry elements where
 // BridgeEntry element is a MACAddress (6 byte) and Interface pair.
 // Mac address [0],[1],[2] = OUI Indexes
 // Mac address [3],[4],[5] = NIC Indexes
-public class HashTable {
+// Entries hashing to the same bucket are kept in a balanced (AVL) binary search
+// tree ordered by MAC address, so a bucket of n colliding entries is searched in O(log n).
+public class HashTable implements MacTable {
 
     // Byte size in bits
     final private int BYTE_SIZE = 8;
-    // Byte mask to clear all bits except for the byte bits
-    final private int BYTE_MASK = 0xff;
-    // Number of bytes (OIU and NIC)
+    // Number of NIC bytes
     final private int COUNT_NIC_BYTES = 3;
-    final private int COUNT_OUI_BYTES = 3;
-    // MAC address index to get first byte (OIU,NIC)
-    final private int FIRST_OUI_BYTE = 0;
-    final private int FIRST_NIC_BYTE = 3;
-    // MAC address index to get last byte (OIU, NIC)
-    final private int LAST_OUI_BYTE = FIRST_OUI_BYTE + COUNT_OUI_BYTES - 1; // zero based index
-    final private int LAST_NIC_BYTE = FIRST_NIC_BYTE + COUNT_NIC_BYTES - 1; // zero based index
-
-    // A fixed length array that will hold all possible NIC values
+
+    // Number of possible NIC values, which is the largest number of buckets the table grows to
     final public int LENGTH = (int) Math.pow( 2, (BYTE_SIZE * COUNT_NIC_BYTES) );
-    HashRecord[] data = new HashRecord[LENGTH];
+
+    // Number of buckets allocated when no expected capacity is given
+    static final int DEFAULT_CAPACITY = 16;
+    // Grow the bucket array when size exceeds bucket count * LOAD_FACTOR
+    static final float LOAD_FACTOR = 0.75f;
+    // Work done by each add while resizing: every old bucket slot scanned and every
+    // node moved into the new bucket array counts as one unit. Must be > 1 + 1 / LOAD_FACTOR
+    // so a resize completes before the next one is due.
+    static final int MIGRATE_STEP = 4;
+    // Smallest bucket range bulkLoad builds on one thread
+    static final int BULK_LEAF_BUCKETS = 1 << 12;
+    // Largest interface value with per interface accounting (counts, limits, flush)
+    public static final int MAX_TRACKED_INTERFACE = 0xFFFF;
+    // Referenced entries the CLOCK hand passes over at most before it evicts
+    // one anyway, so an eviction costs O(1)
+    static final int CLOCK_SWEEP_LIMIT = 32;
+
+    // Buckets indexed by getHash(macAddress) & (data.length - 1)
+    HashRecord[] data;
+    // Previous bucket array while a resize is in progress, otherwise null.
+    // A non-null oldData[i] holds the nodes of a bucket not moved into data yet; every
+    // node is in exactly one of the two arrays.
+    HashRecord[] oldData;
+    // Next old bucket to move into data (a large bucket is moved over several adds)
+    int migrateIndex;
+    // Number of entries in the table
+    int size;
+
+    // Bucket array size requested at construction (restored by initialize)
+    private final int initialCapacity;
+    // Maps a MAC address to its bucket index (low bits of the hash)
+    private final MacHasher hasher;
+    // Reusable per-key tree positions and packed keys for the batch lookups
+    private HashRecord[] batchCursors = new HashRecord[0];
+    private long[] batchMacs = new long[0];
+    // Reusable stack for walking a bucket tree while moving it
+    private HashRecord[] migrateStack = new HashRecord[16];
+
+    // Time source for HashRecord.lastSeen (milliseconds)
+    private LongSupplier clock = System::currentTimeMillis;
+    // Entries not learned for longer than maxAge are removed by age(); 0 disables aging
+    private long maxAge = 0;
+    // Next bucket to examine in age()
+    private int agingIndex;
+    // Reusable stack for walking a bucket tree and the stale nodes found in it
+    private HashRecord[] agingStack = new HashRecord[16];
+    private HashRecord[] staleNodes = new HashRecord[16];
+    // Hot path counters, null when not instrumented
+    private HashTableMetrics metrics;
+    // Receives an event per change for replication, or null
+    private ChangeLog changeLog;
+    // Entry limits (0 = no limit) and what happens when one is reached
+    private int maxEntries;
+    private int maxEntriesPerInterface;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.REFUSE_NEW;
+    // Position of the CLOCK hand in the ring of all entries (null when empty)
+    private HashRecord clockHand;
+    // Entry count and CLOCK hand of the ring of each interface value, grown on demand
+    private int[] interfaceCounts = new int[0];
+    private HashRecord[] interfaceHands = new HashRecord[0];
+    // Incremented whenever an entry is linked into or unlinked from the rings,
+    // so cursors and spliterators can detect changes made during a pass
+    int modifications;
+
+    public HashTable()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // Create a table sized for expectedEntries. The bucket array grows
+    // incrementally beyond that as entries are added, up to LENGTH buckets.
+    public HashTable(int expectedEntries)
+    {
+        this(expectedEntries, new NicMacHasher());
+    }
+
+    // Create a table sized for expectedEntries that places entries with hasher,
+    // for example a seeded MixingMacHasher when the NIC bytes are not uniform.
+    public HashTable(int expectedEntries, MacHasher hasher)
+    {
+        this.hasher = hasher;
+        initialCapacity = capacityFor(expectedEntries);
+        data = new HashRecord[initialCapacity];
+    }
+
+    // Return the bucket count (power of two, at most LENGTH) for the number of entries
+    private int capacityFor(int entries)
+    {
+        long needed = (long) Math.ceil(Math.max(entries, 1) / (double) LOAD_FACTOR);
+        int capacity = DEFAULT_CAPACITY;
+        while ( capacity < needed && capacity < LENGTH )
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
 
     // initialize the table by clearing all entries
     public void initialize()
     {
-        for ( int i=0; i < LENGTH; i++ )
+        data = new HashRecord[initialCapacity];
+        oldData = null;
+        migrateIndex = 0;
+        agingIndex = 0;
+        size = 0;
+        clockHand = null;
+        modifications++;
+        Arrays.fill(interfaceCounts, 0);
+        Arrays.fill(interfaceHands, null);
+        if ( changeLog != null )
         {
-            data[i] = null;
+            changeLog.append(ChangeLog.CLEAR, 0, BridgeEntry.INVALID_INTERFACE_VALUE);
         }
     }
 
-    // Use the NIC bytes to calculate a unique hash key
-    public int getHash(byte[] macAddress)
+    // Set the time source used to stamp entries when they are learned (milliseconds)
+    public void setClock(LongSupplier clock)
     {
-        return (int) getNICNumericValue(macAddress);
+        this.clock = clock;
     }
 
-    // Return NIC bytes as an integer value
-    private long getNICNumericValue(byte[] macAddress)
+    // Attach hot path counters, or detach them with null
+    public void setMetrics(HashTableMetrics metrics)
     {
-        return getNumericValue(macAddress, FIRST_NIC_BYTE, LAST_NIC_BYTE);
+        this.metrics = metrics;
     }
 
-    // Return OUI bytes as an integer value
-    private long getOUINumericValue(byte[] macAddress)
+    // Append every add, move, remove and aged out entry to changeLog (see
+    // ChangeLogReplica), or stop with null. Changes are appended by the thread
+    // updating the table and never wait for the readers of the log.
+    public void setChangeLog(ChangeLog changeLog)
     {
-        return getNumericValue(macAddress, FIRST_OUI_BYTE, LAST_OUI_BYTE);
+        this.changeLog = changeLog;
     }
 
-    // Return MAC address bytes (0-5) as an integer value
-    private long getMACAddressNumericValue(byte[] macAddress)
+    // Limit the number of entries; 0 removes the limit. A new entry beyond the
+    // limit is handled by the eviction policy. Bounds the memory used under MAC flooding.
+    public void setMaxEntries(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    // Limit the number of entries on each interface value (0 .. MAX_TRACKED_INTERFACE);
+    // 0 removes the limit. A new entry or a station move onto a full interface
+    // is handled by the eviction policy.
+    public void setMaxEntriesPerInterface(int maxEntriesPerInterface)
+    {
+        this.maxEntriesPerInterface = maxEntriesPerInterface;
+    }
+
+    // Set what happens when an entry limit is reached (default REFUSE_NEW)
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    // Return true if the entries of the interface value are kept in a ring of their own
+    static boolean isTrackedInterface(int interfaceValue)
     {
-        return getNumericValue(macAddress, 0, BridgeEntry.NUM_FIELDS - 1);
+        return interfaceValue >= 0 && interfaceValue <= MAX_TRACKED_INTERFACE;
     }
 
-    // Shift the bytes by multiple of byte size where
-    // the multiple depends on the byte index and array length.
-    // (Similar to a register with three byte fields.)
-    // Shift function example for a 6 element array:
-    // Input(index)    Output(multiple of 8 bits to shift the MAC address field)
-    //  5               0
-    //  4               1
-    //  3               2
-    //  ..              ..
-    //  0               5
-    private long getNumericValue(byte[] macAddress, int firstByte, int lastByte)
+    // Return the number of entries learned on the interface value
+    public int countByInterface(int interfaceValue)
     {
-        long value = 0;
+        if ( interfaceValue < 0 || interfaceValue >= interfaceCounts.length )
+        {
+            return 0;
+        }
+        return interfaceCounts[interfaceValue];
+    }
+
+    // Remove every entry learned on the interface value (e.g. when its link goes down).
+    // Follows the ring of the interface, so the cost is proportional to the entries
+    // on that interface; untracked interface values (above MAX_TRACKED_INTERFACE)
+    // walk the ring of all entries. Return the number of entries removed.
+    public int flushInterface(int interfaceValue) throws HashTableException
+    {
+        if ( data == null )
+        {
+            throw new NullHashTableException();
+        }
 
-        for ( int i = firstByte; i <= lastByte; i++ )
+        int removed = 0;
+        if ( isTrackedInterface(interfaceValue) )
+        {
+            HashRecord node;
+            while ( (node = firstOnInterface(interfaceValue)) != null )
+            {
+                removeEntry(getHash(node.key), node.key);
+                removed++;
+            }
+        }
+        else
         {
-            int shiftBy = (lastByte - i) * BYTE_SIZE;
-            long macAddressField = (( (long) ( macAddress[i] & BYTE_MASK) ) << shiftBy);
-            value |= macAddressField ;
+            HashRecord node = clockHand;
+            for ( int i = size; i > 0; i-- )
+            {
+                HashRecord next = node.clockNext;
+                if ( node.linkedInterface == interfaceValue )
+                {
+                    removeEntry(getHash(node.key), node.key);
+                    removed++;
+                }
+                node = next;
+            }
         }
-        return value;
+        return removed;
+    }
+
+    // Set the age (milliseconds) after which age() removes an entry; 0 disables aging
+    public void setMaxAge(long maxAge)
+    {
+        this.maxAge = maxAge;
+    }
+
+    // Return the number of entries in the table
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of buckets currently allocated
+    public int capacity()
+    {
+        return data.length;
+    }
+
+    // Use the hasher (by default the NIC bytes) to calculate the hash key
+    public int getHash(byte[] macAddress)
+    {
+        return getHash(getMACAddressNumericValue(macAddress));
+    }
+
+    // Hash key of the packed MAC address (same as getHash)
+    private int getHash(long macAddress)
+    {
+        return hasher.hash(macAddress) & (LENGTH - 1);
+    }
+
+    // Return MAC address bytes (0-5) as an integer value
+    private long getMACAddressNumericValue(byte[] macAddress)
+    {
+        return MacAddress.toLong(macAddress);
     }
 
     // Determine the index by getting the hash key
     // and insert into linked list (binary search tree).
     public void add(BridgeEntry newEntry) throws HashTableException{
+        insert(getMACAddressNumericValue(newEntry.macAddress), newEntry, false);
+    }
+
+    // Insert the packed MAC address and interface value (no byte[] conversion needed)
+    public void add(long mac, int interfaceValue) throws HashTableException{
+        MacAddress.checkKey(mac);
+        insert(mac, newEntry(mac, interfaceValue), false);
+    }
+
+    // Insert the entry, or if the MAC address is already learned (station moved)
+    // replace the stored entry with newEntry.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(BridgeEntry newEntry) throws HashTableException{
+        return insert(getMACAddressNumericValue(newEntry.macAddress), newEntry, true);
+    }
+
+    // put for a packed MAC address and interface value
+    public int put(long mac, int interfaceValue) throws HashTableException{
+        MacAddress.checkKey(mac);
+        return insert(mac, newEntry(mac, interfaceValue), true);
+    }
+
+    private static BridgeEntry newEntry(long mac, int interfaceValue)
+    {
+        BridgeEntry entry = new BridgeEntry();
+        MacAddress.toBytes(mac, entry.macAddress);
+        entry.interfaceValue = interfaceValue;
+        return entry;
+    }
+
+    // Insert newEntry (packed MAC address valueMacAddress) into its bucket tree; an
+    // existing entry for the same MAC address is replaced when replace is set,
+    // otherwise rejected. An entry (or a move) refused by the entry limits throws
+    // FullHashTableException.
+    private int insert(long valueMacAddress, BridgeEntry newEntry, boolean replace) throws HashTableException{
+        int previousValue = BridgeEntry.INVALID_INTERFACE_VALUE;
+
         if ( data != null )
         {
-            int index = getHash(newEntry.macAddress);
-            boolean addRightNode = false;
+            int index = getHash(valueMacAddress);
 
             if ( index < LENGTH)
             {
-                // Previous header = current first node
-                HashRecord prevNode = null;
-                HashRecord currentNode = data[index];
-                long valueMacAddress = getMACAddressNumericValue(newEntry.macAddress);
+                resizeStep();
+
+                // Look for an existing entry first (still in its old bucket while
+                // resizing): duplicates are rejected or updated in place
+                HashRecord currentNode = null;
+                int depth = 1;
+                if ( oldData != null )
+                {
+                    currentNode = findNode(oldData[index & (oldData.length - 1)], valueMacAddress);
+                }
+                if ( currentNode == null )
+                {
+                    currentNode = data[index & (data.length - 1)];
+                    while ( currentNode != null && currentNode.key != valueMacAddress )
+                    {
+                        currentNode = ( valueMacAddress > currentNode.key ) ? currentNode.right : currentNode.left;
+                        depth++;
+                    }
+                }
 
-                while ( currentNode != null )
+                if ( currentNode != null )
                 {
-                    prevNode = currentNode;
-                    long currentMacAddress = getMACAddressNumericValue(currentNode.value.macAddress);
-                    if ( valueMacAddress == currentMacAddress )
+                    if ( !replace )
                     {
+                        if ( metrics != null )
+                        {
+                            metrics.recordDuplicate();
+                        }
                         // UNSUPPORTED USE CASE
                         throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
-                        // Alternative: Set interface value to the new value
                     }
-                    else if ( valueMacAddress > currentMacAddress )
+                    // Station moved or re-learned: set interface value to the new value
+                    previousValue = currentNode.value.interfaceValue;
+                    boolean moved = currentNode.linkedInterface != newEntry.interfaceValue;
+                    if ( moved )
+                    {
+                        if ( !makeRoomOnInterface(newEntry.interfaceValue) )
+                        {
+                            refuse();
+                        }
+                        unlinkInterface(currentNode);
+                    }
+                    currentNode.value = newEntry;
+                    if ( moved )
                     {
-                        currentNode = currentNode.right;
-                        addRightNode = true;
+                        linkInterface(currentNode);
                     }
-                    else // valueMacAddress < currentMacAddress
+                    currentNode.lastSeen = clock.getAsLong();
+                    currentNode.referenced = true;
+                    if ( metrics != null )
                     {
-                        currentNode = currentNode.left;
-                        addRightNode = false;
+                        metrics.recordUpdate();
                     }
+                    if ( changeLog != null && previousValue != newEntry.interfaceValue )
+                    {
+                        changeLog.append(ChangeLog.UPDATE, valueMacAddress, newEntry.interfaceValue);
+                    }
+                    return previousValue;
                 }
 
-                if ( prevNode == null ) // first element in the tree
+                if ( !makeRoomOnInterface(newEntry.interfaceValue) || !makeRoom() )
                 {
-                    data[index] = new HashRecord();
-                    data[index].value = newEntry;
+                    refuse();
                 }
-                else
+
+                HashRecord newNode = new HashRecord();
+                newNode.key = valueMacAddress;
+                newNode.value = newEntry;
+                newNode.lastSeen = clock.getAsLong();
+                int bucket = index & (data.length - 1);
+                data[bucket] = insertNode(data[bucket], newNode, valueMacAddress);
+                linkEntry(newNode);
+                size++;
+                if ( metrics != null )
                 {
-                    if ( addRightNode )
-                    {
-                        prevNode.right = new HashRecord();
-                        prevNode.right.value = newEntry;
-                    }
-                    else
-                    {
-                        prevNode.left = new HashRecord();
-                        prevNode.left.value = newEntry;
-                    }
+                    metrics.recordInsert(depth);
+                }
+                if ( changeLog != null )
+                {
+                    changeLog.append(ChangeLog.ADD, valueMacAddress, newEntry.interfaceValue);
                 }
             }
         }
@@ -141,81 +406,1106 @@ public class HashTable {
         {
             throw new NullHashTableException();
         }
-    }
-
-    // Return the BridgeEntry at the specified macAddress
-    // Determine the index to hash into in O(1) time.
-    // Then traverse the linear linked list to search the MAC address in worst case 0(n) time.
-    public BridgeEntry find(byte[] macAddress) throws HashTableException {
 
-        BridgeEntry result = null;
+        return previousValue;
+    }
 
+    // Add count entries from the parallel arrays in one pass instead of one add per entry.
+    // The bucket array is sized for the final size up front, entries are partitioned
+    // by bucket and the buckets are built in parallel on the common fork/join pool.
+    // MAC addresses already in the table or repeated in the input are not added
+    // (counted as duplicates in the metrics). Provisioned entries are not subject
+    // to the entry limits. Return the number of entries added; nothing is added when
+    // a MAC address does not fit in 48 bits.
+    public int bulkLoad(long[] macs, int[] interfaceValues, int count) throws HashTableException
+    {
         if ( data == null )
         {
             throw new NullHashTableException();
         }
-
-        // Hash into array
-        int index = getHash(macAddress);
-        if ( index >= LENGTH)
+        for ( int i = 0; i < count; i++ )
         {
-            throw new IndexOutOfBoundHashTableException();
+            MacAddress.checkKey(macs[i]);
         }
 
-        // Traverse linked list
-        HashRecord currentRecord = data[index];
-        while ( currentRecord != null )
+        // Finish a resize in progress, then grow once for the final size
+        finishMigration();
+        int capacity = capacityFor(size + count);
+        if ( capacity > data.length )
         {
-            if ( currentRecord.value != null )
+            oldData = data;
+            data = new HashRecord[capacity];
+            for ( int i = 0; i < oldData.length; i++ )
             {
-                long compare = (long) (getMACAddressNumericValue(macAddress) - getMACAddressNumericValue(currentRecord.value.macAddress));
+                migrateBucket(i);
+            }
+            oldData = null;
+            migrateIndex = 0;
+        }
 
-                if ( compare == 0 )// equal
-                {
-                    result = currentRecord.value;
-                    currentRecord = null; // exit condition
-                }
-                else if ( compare > 0 ) // greater than
+        // Counting sort of the entries by bucket: bucket b is sorted[bucketStart[b] .. bucketStart[b + 1])
+        int mask = data.length - 1;
+        int[] bucketStart = new int[data.length + 1];
+        int[] buckets = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            buckets[i] = getHash(macs[i]) & mask;
+            bucketStart[buckets[i] + 1]++;
+        }
+        for ( int bucket = 0; bucket < data.length; bucket++ )
+        {
+            bucketStart[bucket + 1] += bucketStart[bucket];
+        }
+        long[] sortedMacs = new long[count];
+        int[] sortedValues = new int[count];
+        int[] next = Arrays.copyOf(bucketStart, data.length);
+        for ( int i = 0; i < count; i++ )
+        {
+            int position = next[buckets[i]]++;
+            sortedMacs[position] = macs[i];
+            sortedValues[position] = interfaceValues[i];
+        }
+
+        int leafBuckets = Math.max(BULK_LEAF_BUCKETS, data.length / (ForkJoinPool.getCommonPoolParallelism() * 8));
+        BulkBuild build = new BulkBuild(new BulkInput(sortedMacs, sortedValues, bucketStart, leafBuckets, clock.getAsLong()), 0, data.length);
+        int loaded = ForkJoinPool.commonPool().invoke(build);
+
+        size += loaded;
+        if ( metrics != null )
+        {
+            metrics.recordBulkLoad(loaded, count - loaded);
+        }
+        for ( HashRecord node : build.input.created )
+        {
+            if ( node != null )
+            {
+                linkEntry(node);
+                if ( changeLog != null )
                 {
-                    currentRecord = currentRecord.right;
+                    changeLog.append(ChangeLog.ADD, node.key, node.value.interfaceValue);
                 }
-                else
+            }
+        }
+        return loaded;
+    }
+
+    // bulkLoad for a stream of MacAddress.pack entries (16-bit interface values)
+    public int bulkLoad(LongStream entries) throws HashTableException
+    {
+        long[] packed = entries.toArray();
+        long[] macs = new long[packed.length];
+        int[] interfaceValues = new int[packed.length];
+        for ( int i = 0; i < packed.length; i++ )
+        {
+            macs[i] = MacAddress.macOf(packed[i]);
+            interfaceValues[i] = MacAddress.interfaceOf(packed[i]);
+        }
+        return bulkLoad(macs, interfaceValues, packed.length);
+    }
+
+    // Return the node for key in the bucket tree at root or null (no metrics,
+    // safe to call from the bulkLoad tasks)
+    private static HashRecord findNode(HashRecord root, long key)
+    {
+        while ( root != null && root.key != key )
+        {
+            root = key > root.key ? root.right : root.left;
+        }
+        return root;
+    }
+
+    // Read only state shared by the tasks of one bulkLoad
+    private static final class BulkInput {
+        final long[] macs;
+        final int[] interfaceValues;
+        final int[] bucketStart;
+        final int leafBuckets;
+        final long lastSeen;
+        // Node created for input entry i, null for a skipped duplicate
+        final HashRecord[] created;
+
+        BulkInput(long[] macs, int[] interfaceValues, int[] bucketStart, int leafBuckets, long lastSeen)
+        {
+            this.macs = macs;
+            this.interfaceValues = interfaceValues;
+            this.bucketStart = bucketStart;
+            this.leafBuckets = leafBuckets;
+            this.lastSeen = lastSeen;
+            created = new HashRecord[macs.length];
+        }
+    }
+
+    // Build the buckets [from, to) from their partition of the input. Tasks own
+    // disjoint bucket ranges, so the trees are linked without locking.
+    // Return the number of entries added.
+    private final class BulkBuild extends RecursiveTask<Integer> {
+        // Never serialized; declared because ForkJoinTask is Serializable
+        private static final long serialVersionUID = 1L;
+
+        private final BulkInput input;
+        private final int from;
+        private final int to;
+
+        BulkBuild(BulkInput input, int from, int to)
+        {
+            this.input = input;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            if ( to - from > input.leafBuckets )
+            {
+                int middle = (from + to) >>> 1;
+                BulkBuild left = new BulkBuild(input, from, middle);
+                left.fork();
+                int loaded = new BulkBuild(input, middle, to).compute();
+                return loaded + left.join();
+            }
+
+            int loaded = 0;
+            for ( int bucket = from; bucket < to; bucket++ )
+            {
+                HashRecord root = data[bucket];
+                for ( int i = input.bucketStart[bucket]; i < input.bucketStart[bucket + 1]; i++ )
                 {
-                    currentRecord = currentRecord.left;
+                    long mac = input.macs[i];
+                    if ( findNode(root, mac) != null )
+                    {
+                        continue;
+                    }
+                    HashRecord node = new HashRecord();
+                    node.key = mac;
+                    node.value = newEntry(mac, input.interfaceValues[i]);
+                    node.lastSeen = input.lastSeen;
+                    root = insertNode(root, node, mac);
+                    input.created[i] = node;
+                    loaded++;
                 }
+                data[bucket] = root;
             }
+            return loaded;
         }
+    }
 
-        return result;
+    // Remove the entry for the specified macAddress.
+    // Return the removed BridgeEntry or null if the MAC address is not in the table.
+    public BridgeEntry remove(byte[] macAddress) throws HashTableException {
+        return remove(getMACAddressNumericValue(macAddress));
     }
 
-    // Return the interfaceValue for the specified macAddress
-    public int findInterface(byte[] macAddress) throws HashTableException {
+    // Remove the entry for the packed MAC address.
+    public BridgeEntry remove(long macAddress) throws HashTableException {
 
-        int result = BridgeEntry.INVALID_INTERFACE_VALUE;
+        if ( data == null )
+        {
+            throw new NullHashTableException();
+        }
 
-        BridgeEntry record = find(macAddress);
-        if ( record != null )
+        int index = getHash(macAddress);
+        if ( index >= LENGTH)
         {
-            result = record.interfaceValue;
+            throw new IndexOutOfBoundHashTableException();
         }
 
-        return result;
+        HashRecord removed = removeEntry(index, macAddress);
+        return removed != null ? removed.value : null;
+    }
+
+    // Remove the entry for the packed MAC address from bucket index (getHash) and
+    // from the eviction rings. Return the removed node or null.
+    private HashRecord removeEntry(int index, long macAddress)
+    {
+        HashRecord removed = null;
+        if ( oldData != null )
+        {
+            removed = removeNode(oldData, index & (oldData.length - 1), macAddress);
+        }
+        if ( removed == null )
+        {
+            removed = removeNode(data, index & (data.length - 1), macAddress);
+        }
+        if ( removed == null )
+        {
+            return null;
+        }
+
+        unlinkEntry(removed);
+        size--;
+        if ( changeLog != null )
+        {
+            changeLog.append(ChangeLog.REMOVE, macAddress, removed.value.interfaceValue);
+        }
+        return removed;
+    }
+
+    // Refuse a new entry (or a move) because of an entry limit
+    private void refuse() throws HashTableException
+    {
+        if ( metrics != null )
+        {
+            metrics.recordRefusal();
+        }
+        throw new FullHashTableException();
+    }
+
+    // Make room for a new entry under maxEntries. Return false if it has to be refused.
+    // At most one entry is evicted per insert, so an insert stays O(1) even when the
+    // table is far over the limit (bulkLoad ignores it, or it was lowered); such a
+    // table keeps its size until removes and aging bring it under the limit.
+    private boolean makeRoom()
+    {
+        if ( maxEntries <= 0 || size < maxEntries )
+        {
+            return true;
+        }
+        if ( evictionPolicy == EvictionPolicy.REFUSE_NEW || clockHand == null )
+        {
+            return false;
+        }
+        clockHand = clockVictim(clockHand, false);
+        evict(clockHand);
+        return true;
+    }
+
+    // Make room for one more entry on the interface value under maxEntriesPerInterface
+    // (evicting at most one entry, see makeRoom). Return false if the entry has to be refused.
+    private boolean makeRoomOnInterface(int interfaceValue)
+    {
+        if ( maxEntriesPerInterface <= 0 || countByInterface(interfaceValue) < maxEntriesPerInterface )
+        {
+            return true;
+        }
+        if ( evictionPolicy == EvictionPolicy.REFUSE_NEW )
+        {
+            return false;
+        }
+        HashRecord victim = clockVictim(interfaceHands[interfaceValue], true);
+        interfaceHands[interfaceValue] = victim;
+        evict(victim);
+        return true;
+    }
+
+    // Advance a CLOCK hand from node: referenced entries get a second chance
+    // (bit cleared) until an unreferenced one or CLOCK_SWEEP_LIMIT entries are passed.
+    // Return the entry to evict.
+    private static HashRecord clockVictim(HashRecord node, boolean interfaceRing)
+    {
+        for ( int i = 0; i < CLOCK_SWEEP_LIMIT && node.referenced; i++ )
+        {
+            node.referenced = false;
+            node = interfaceRing ? node.interfaceNext : node.clockNext;
+        }
+        return node;
+    }
+
+    private void evict(HashRecord victim)
+    {
+        removeEntry(getHash(victim.key), victim.key);
+        if ( metrics != null )
+        {
+            metrics.recordEviction();
+        }
     }
 
-    // Compare the two MAC addresses and return true if equal, false if not equal.
-    private boolean areEqual(byte[] macAddress1, byte[] macAddress2, int expectedLength)
+    // Link a new node into the ring of all entries, just behind the CLOCK hand,
+    // and into the ring of its interface
+    private void linkEntry(HashRecord node)
     {
-        boolean areEqual = false;
+        if ( clockHand == null )
+        {
+            node.clockPrev = node;
+            node.clockNext = node;
+            clockHand = node;
+        }
+        else
+        {
+            node.clockNext = clockHand;
+            node.clockPrev = clockHand.clockPrev;
+            clockHand.clockPrev.clockNext = node;
+            clockHand.clockPrev = node;
+        }
+        linkInterface(node);
+    }
 
-        if ( macAddress1 != null && macAddress2 != null )
+    private void unlinkEntry(HashRecord node)
+    {
+        if ( node.clockNext == node )
+        {
+            clockHand = null;
+        }
+        else
         {
-            if ( getMACAddressNumericValue(macAddress1) == getMACAddressNumericValue(macAddress2))
+            node.clockPrev.clockNext = node.clockNext;
+            node.clockNext.clockPrev = node.clockPrev;
+            if ( clockHand == node )
             {
-                areEqual =true;
+                clockHand = node.clockNext;
             }
         }
+        node.clockPrev = null;
+        node.clockNext = null;
+        unlinkInterface(node);
+    }
+
+    // Link the node into the ring of its interface value (if tracked)
+    private void linkInterface(HashRecord node)
+    {
+        modifications++;
+        int interfaceValue = node.value.interfaceValue;
+        node.linkedInterface = interfaceValue;
+        if ( interfaceValue < 0 || interfaceValue > MAX_TRACKED_INTERFACE )
+        {
+            return;
+        }
+        if ( interfaceValue >= interfaceCounts.length )
+        {
+            int length = Math.min(Math.max(interfaceValue + 1, interfaceCounts.length << 1), MAX_TRACKED_INTERFACE + 1);
+            interfaceCounts = Arrays.copyOf(interfaceCounts, length);
+            interfaceHands = Arrays.copyOf(interfaceHands, length);
+        }
+
+        HashRecord hand = interfaceHands[interfaceValue];
+        if ( hand == null )
+        {
+            node.interfacePrev = node;
+            node.interfaceNext = node;
+            interfaceHands[interfaceValue] = node;
+        }
+        else
+        {
+            node.interfaceNext = hand;
+            node.interfacePrev = hand.interfacePrev;
+            hand.interfacePrev.interfaceNext = node;
+            hand.interfacePrev = node;
+        }
+        interfaceCounts[interfaceValue]++;
+    }
+
+    private void unlinkInterface(HashRecord node)
+    {
+        modifications++;
+        if ( node.interfaceNext == null )
+        {
+            return;
+        }
 
-        return areEqual;
+        int interfaceValue = node.linkedInterface;
+        if ( node.interfaceNext == node )
+        {
+            interfaceHands[interfaceValue] = null;
+        }
+        else
+        {
+            node.interfacePrev.interfaceNext = node.interfaceNext;
+            node.interfaceNext.interfacePrev = node.interfacePrev;
+            if ( interfaceHands[interfaceValue] == node )
+            {
+                interfaceHands[interfaceValue] = node.interfaceNext;
+            }
+        }
+        node.interfacePrev = null;
+        node.interfaceNext = null;
+        interfaceCounts[interfaceValue]--;
+    }
+
+    private static int height(HashRecord node)
+    {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void updateHeight(HashRecord node)
+    {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    private static HashRecord rotateRight(HashRecord node)
+    {
+        HashRecord left = node.left;
+        node.left = left.right;
+        left.right = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private static HashRecord rotateLeft(HashRecord node)
+    {
+        HashRecord right = node.right;
+        node.right = right.left;
+        right.left = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
+
+    // Restore the AVL property (child heights differ by at most one) at node
+    // after one of its subtrees changed height by one. Return the subtree root.
+    private static HashRecord rebalance(HashRecord node)
+    {
+        updateHeight(node);
+        int balance = height(node.left) - height(node.right);
+
+        if ( balance > 1 )
+        {
+            if ( height(node.left.left) < height(node.left.right) )
+            {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if ( balance < -1 )
+        {
+            if ( height(node.right.right) < height(node.right.left) )
+            {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // Link node (key not yet in the tree) into the tree at root. Return the new root.
+    private HashRecord insertNode(HashRecord root, HashRecord node, long key)
+    {
+        if ( root == null )
+        {
+            node.left = null;
+            node.right = null;
+            node.height = 1;
+            return node;
+        }
+
+        if ( key > root.key )
+        {
+            root.right = insertNode(root.right, node, key);
+        }
+        else
+        {
+            root.left = insertNode(root.left, node, key);
+        }
+        return rebalance(root);
+    }
+
+    // Unlink the node with key from the tree in buckets[bucket].
+    // Return the removed node, or null if key is not in the tree.
+    private static HashRecord removeNode(HashRecord[] buckets, int bucket, long key)
+    {
+        HashRecord node = findNode(buckets[bucket], key);
+        if ( node != null )
+        {
+            buckets[bucket] = unlinkNode(buckets[bucket], node);
+        }
+        return node;
+    }
+
+    // Unlink node, which is in the tree at root, keeping the tree balanced.
+    // Return the new root.
+    private static HashRecord unlinkNode(HashRecord root, HashRecord node)
+    {
+        if ( root == node )
+        {
+            HashRecord replacement;
+            if ( root.left == null || root.right == null )
+            {
+                replacement = ( root.left != null ) ? root.left : root.right;
+            }
+            else
+            {
+                // Smallest node of the right subtree takes the place of root
+                replacement = root.right;
+                while ( replacement.left != null )
+                {
+                    replacement = replacement.left;
+                }
+                replacement.right = removeSmallest(root.right);
+                replacement.left = root.left;
+                replacement = rebalance(replacement);
+            }
+            root.left = null;
+            root.right = null;
+            return replacement;
+        }
+
+        if ( node.key > root.key )
+        {
+            root.right = unlinkNode(root.right, node);
+        }
+        else
+        {
+            root.left = unlinkNode(root.left, node);
+        }
+        return rebalance(root);
+    }
+
+    // Unlink the smallest node of the tree at root. Return the new root.
+    private static HashRecord removeSmallest(HashRecord root)
+    {
+        if ( root.left == null )
+        {
+            return root.right;
+        }
+        root.left = removeSmallest(root.left);
+        return rebalance(root);
+    }
+
+    // Remove entries not learned within maxAge, examining at most bucketCount buckets.
+    // Each call continues where the previous one stopped so a full sweep is spread
+    // over many short calls between lookups.
+    // Return the number of entries removed.
+    public int age(int bucketCount)
+    {
+        int removed = 0;
+
+        if ( maxAge <= 0 || data == null )
+        {
+            return removed;
+        }
+
+        long oldest = clock.getAsLong() - maxAge;
+        for ( int i = 0; i < bucketCount; i++ )
+        {
+            int bucket = agingIndex & (data.length - 1);
+            agingIndex = bucket + 1;
+            // The old bucket still holding part of this bucket's entries while resizing
+            if ( oldData != null )
+            {
+                removed += ageBucket(oldData, bucket & (oldData.length - 1), oldest);
+            }
+            removed += ageBucket(data, bucket, oldest);
+        }
+
+        return removed;
+    }
+
+    // Remove every entry of buckets[bucket] last seen before oldest. The stale nodes
+    // are collected in one walk of the tree and then unlinked, O(m + s log m) for a
+    // bucket of m entries of which s are stale.
+    private int ageBucket(HashRecord[] buckets, int bucket, long oldest)
+    {
+        int removed = collectStale(buckets[bucket], oldest);
+
+        for ( int i = 0; i < removed; i++ )
+        {
+            HashRecord stale = staleNodes[i];
+            staleNodes[i] = null;
+            buckets[bucket] = unlinkNode(buckets[bucket], stale);
+            unlinkEntry(stale);
+            size--;
+            if ( changeLog != null )
+            {
+                changeLog.append(ChangeLog.REMOVE, stale.key, stale.value.interfaceValue);
+            }
+        }
+
+        return removed;
+    }
+
+    // Store the nodes of the tree at root last seen before oldest in staleNodes.
+    // Return their number.
+    private int collectStale(HashRecord root, long oldest)
+    {
+        int count = 0;
+        if ( root == null )
+        {
+            return count;
+        }
+
+        int top = 0;
+        agingStack[top++] = root;
+        while ( top > 0 )
+        {
+            HashRecord node = agingStack[--top];
+            agingStack[top] = null;
+            if ( top + 2 > agingStack.length )
+            {
+                agingStack = Arrays.copyOf(agingStack, agingStack.length << 1);
+            }
+            if ( node.right != null )
+            {
+                agingStack[top++] = node.right;
+            }
+            if ( node.left != null )
+            {
+                agingStack[top++] = node.left;
+            }
+            if ( node.lastSeen < oldest )
+            {
+                if ( count == staleNodes.length )
+                {
+                    staleNodes = Arrays.copyOf(staleNodes, count << 1);
+                }
+                staleNodes[count++] = node;
+            }
+        }
+        return count;
+    }
+
+    // Do MIGRATE_STEP units of the resize in progress, or start a new resize when
+    // the table is full. Spreads the cost of rehashing over the adds instead of one long pause.
+    private void resizeStep()
+    {
+        if ( oldData != null )
+        {
+            migrateStep(MIGRATE_STEP);
+        }
+        else if ( size >= data.length * LOAD_FACTOR && data.length < LENGTH )
+        {
+            oldData = data;
+            data = new HashRecord[oldData.length << 1];
+            migrateIndex = 0;
+        }
+    }
+
+    // Do up to budget units of migration work, each one either passing an empty old
+    // bucket or moving the root node of the old bucket at migrateIndex. The rest of a
+    // large bucket stays in its old tree until the following steps, so no step walks
+    // a whole tree. Finish the resize after the last old bucket.
+    private void migrateStep(int budget)
+    {
+        for ( int work = 0; work < budget; work++ )
+        {
+            HashRecord node = oldData[migrateIndex];
+            if ( node == null )
+            {
+                if ( ++migrateIndex == oldData.length )
+                {
+                    oldData = null;
+                    migrateIndex = 0;
+                    return;
+                }
+            }
+            else
+            {
+                oldData[migrateIndex] = unlinkNode(node, node);
+                int bucket = getHash(node.key) & (data.length - 1);
+                data[bucket] = insertNode(data[bucket], node, node.key);
+            }
+        }
+    }
+
+    // Move every bucket not yet moved by the resize in progress (bulk operations only)
+    private void finishMigration()
+    {
+        while ( oldData != null )
+        {
+            migrateBucket(migrateIndex);
+            if ( ++migrateIndex == oldData.length )
+            {
+                oldData = null;
+                migrateIndex = 0;
+            }
+        }
+    }
+
+    // Move every node of the old bucket into its bucket in the current array.
+    // Nodes are re-linked into the balanced trees of the new buckets; nothing is
+    // allocated except when the reusable stack has to grow.
+    private void migrateBucket(int oldIndex)
+    {
+        HashRecord root = oldData[oldIndex];
+        if ( root == null )
+        {
+            return;
+        }
+        oldData[oldIndex] = null;
+
+        int top = 0;
+        migrateStack[top++] = root;
+        while ( top > 0 )
+        {
+            HashRecord node = migrateStack[--top];
+            migrateStack[top] = null;
+            if ( top + 2 > migrateStack.length )
+            {
+                migrateStack = Arrays.copyOf(migrateStack, migrateStack.length << 1);
+            }
+            if ( node.right != null )
+            {
+                migrateStack[top++] = node.right;
+            }
+            if ( node.left != null )
+            {
+                migrateStack[top++] = node.left;
+            }
+            int bucket = getHash(node.key) & (data.length - 1);
+            data[bucket] = insertNode(data[bucket], node, node.key);
+        }
+    }
+
+    // Return the BridgeEntry at the specified macAddress
+    // Determine the index to hash into in O(1) time.
+    // Then traverse the balanced bucket tree to search the MAC address in worst case O(log n) time.
+    public BridgeEntry find(byte[] macAddress) throws HashTableException {
+        return find(getMACAddressNumericValue(macAddress));
+    }
+
+    // Return the BridgeEntry for the packed MAC address (no byte[] conversion needed)
+    public BridgeEntry find(long macAddress) throws HashTableException {
+
+        BridgeEntry result = null;
+
+        if ( data == null )
+        {
+            throw new NullHashTableException();
+        }
+
+        // Hash into array
+        int index = getHash(macAddress);
+        if ( index >= LENGTH)
+        {
+            throw new IndexOutOfBoundHashTableException();
+        }
+
+        // Search the old bucket (nodes not moved yet by an ongoing resize), then the
+        // new one. The nodes visited are counted in a local for the metrics.
+        HashRecord currentRecord = ( oldData != null ) ? oldData[index & (oldData.length - 1)] : null;
+        HashRecord nextRoot = data[index & (data.length - 1)];
+        int depth = 0;
+
+        // (keys are cached in the nodes, so each step is one long compare)
+        while ( currentRecord != null || nextRoot != null )
+        {
+            if ( currentRecord == null )
+            {
+                currentRecord = nextRoot;
+                nextRoot = null;
+            }
+            depth++;
+            if ( macAddress == currentRecord.key )
+            {
+                result = currentRecord.value;
+                markReferenced(currentRecord);
+                break;
+            }
+            currentRecord = ( macAddress > currentRecord.key ) ? currentRecord.right : currentRecord.left;
+        }
+
+        if ( metrics != null )
+        {
+            if ( result != null )
+            {
+                metrics.recordHit(depth);
+            }
+            else
+            {
+                metrics.recordMiss(depth);
+            }
+        }
+
+        return result;
+    }
+
+    // Give the entry a second chance against CLOCK eviction. Only written when
+    // clear so lookups of hot entries do not keep dirtying the node.
+    private static void markReferenced(HashRecord node)
+    {
+        if ( !node.referenced )
+        {
+            node.referenced = true;
+        }
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress) throws HashTableException {
+        return findInterface(getMACAddressNumericValue(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    public int findInterface(long macAddress) throws HashTableException {
+
+        int result = BridgeEntry.INVALID_INTERFACE_VALUE;
+
+        BridgeEntry record = find(macAddress);
+        if ( record != null )
+        {
+            result = record.interfaceValue;
+        }
+
+        return result;
+    }
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count.
+    // All bucket indexes are computed first and the bucket trees are then walked
+    // one step per key in turn, so the cache misses of the burst overlap instead
+    // of being serialized as with one findInterface call per key.
+    public void findInterfaces(long[] macs, int[] outIfaces, int count) throws HashTableException {
+
+        if ( data == null )
+        {
+            throw new NullHashTableException();
+        }
+        if ( batchCursors.length < count )
+        {
+            batchCursors = new HashRecord[count];
+        }
+
+        HashRecord[] cursors = batchCursors;
+        int mask = data.length - 1;
+        for ( int i = 0; i < count; i++ )
+        {
+            outIfaces[i] = BridgeEntry.INVALID_INTERFACE_VALUE;
+            cursors[i] = data[getHash(macs[i]) & mask];
+        }
+        walkBatch(macs, outIfaces, cursors, count);
+
+        // Keys not found may be in buckets that an ongoing resize has not moved yet
+        if ( oldData != null )
+        {
+            int oldMask = oldData.length - 1;
+            for ( int i = 0; i < count; i++ )
+            {
+                cursors[i] = ( outIfaces[i] == BridgeEntry.INVALID_INTERFACE_VALUE ) ? oldData[getHash(macs[i]) & oldMask] : null;
+            }
+            walkBatch(macs, outIfaces, cursors, count);
+        }
+
+        if ( metrics != null )
+        {
+            int hits = 0;
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( outIfaces[i] != BridgeEntry.INVALID_INTERFACE_VALUE )
+                {
+                    hits++;
+                }
+            }
+            metrics.recordBatch(hits, count - hits);
+        }
+    }
+
+    // Look up the destination MAC addresses of a burst of frames: the 6 byte
+    // address of frame i starts at frames[offsets[i]].
+    public void findInterfaces(byte[] frames, int[] offsets, int[] outIfaces, int count) throws HashTableException {
+
+        long[] macs = batchMacs(count);
+        for ( int i = 0; i < count; i++ )
+        {
+            macs[i] = MacAddress.toLong(frames, offsets[i]);
+        }
+        findInterfaces(macs, outIfaces, count);
+    }
+
+    // Look up the destination MAC addresses of a burst of frames: the 6 byte
+    // address of frame i starts at the absolute buffer offset offsets[i].
+    public void findInterfaces(ByteBuffer frames, int[] offsets, int[] outIfaces, int count) throws HashTableException {
+
+        long[] macs = batchMacs(count);
+        for ( int i = 0; i < count; i++ )
+        {
+            macs[i] = MacAddress.toLong(frames, offsets[i]);
+        }
+        findInterfaces(macs, outIfaces, count);
+    }
+
+    // Return the reusable packed key array, large enough for count keys
+    private long[] batchMacs(int count)
+    {
+        if ( batchMacs.length < count )
+        {
+            batchMacs = new long[count];
+        }
+        return batchMacs;
+    }
+
+    // Advance every cursor one tree level per pass until all keys are resolved
+    private void walkBatch(long[] macs, int[] outIfaces, HashRecord[] cursors, int count)
+    {
+        int active = count;
+        while ( active > 0 )
+        {
+            active = 0;
+            for ( int i = 0; i < count; i++ )
+            {
+                HashRecord currentRecord = cursors[i];
+                if ( currentRecord == null )
+                {
+                    continue;
+                }
+
+                long currentMacAddress = currentRecord.key;
+                if ( macs[i] == currentMacAddress )
+                {
+                    outIfaces[i] = currentRecord.value.interfaceValue;
+                    markReferenced(currentRecord);
+                    currentRecord = null;
+                }
+                else
+                {
+                    currentRecord = ( macs[i] > currentMacAddress ) ? currentRecord.right : currentRecord.left;
+                }
+
+                cursors[i] = currentRecord;
+                if ( currentRecord != null )
+                {
+                    active++;
+                }
+            }
+        }
+    }
+
+    // Pass every entry to the consumer. Follows the ring of all entries, so the
+    // cost is proportional to the number of entries, not to the bucket count,
+    // and nothing is allocated. The consumer must not change the table.
+    public void forEach(LongIntConsumer consumer)
+    {
+        HashRecord node = clockHand;
+        for ( int i = 0; i < size; i++ )
+        {
+            consumer.accept(node.key, node.value.interfaceValue);
+            node = node.clockNext;
+        }
+    }
+
+    // Pass the entries with fromMac <= MAC address <= toMac to the consumer in
+    // ascending MAC address order. The table keeps no ordered index, so this walks
+    // all n entries twice (to count, then copy the k in range into arrays of exactly
+    // k) and sorts the copies: O(n + k log k) time and O(k) memory per call. For
+    // frequent ordered scans publish a ForwardingSnapshot, whose forEachInRange
+    // takes O(log n + k) and allocates nothing.
+    public void forEachInRange(long fromMac, long toMac, LongIntConsumer consumer)
+    {
+        int count = 0;
+        HashRecord node = clockHand;
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( node.key >= fromMac && node.key <= toMac )
+            {
+                count++;
+            }
+            node = node.clockNext;
+        }
+        if ( count == 0 )
+        {
+            return;
+        }
+
+        long[] keys = new long[count];
+        int[] values = new int[count];
+        // The walk above ended back at clockHand
+        int copied = 0;
+        while ( copied < count )
+        {
+            if ( node.key >= fromMac && node.key <= toMac )
+            {
+                keys[copied] = node.key;
+                values[copied] = node.value.interfaceValue;
+                copied++;
+            }
+            node = node.clockNext;
+        }
+
+        ForwardingSnapshot.sort(keys, values, 0, count - 1);
+        for ( int i = 0; i < count; i++ )
+        {
+            consumer.accept(keys[i], values[i]);
+        }
+    }
+
+    // Return a cursor over all entries (see EntryCursor)
+    public EntryCursor cursor()
+    {
+        return new EntryCursor(this, EntryCursor.ANY, EntryCursor.ANY);
+    }
+
+    // Return a cursor over the entries learned on the interface value. For tracked
+    // interface values (0 .. MAX_TRACKED_INTERFACE) only those entries are visited.
+    public EntryCursor cursorForInterface(int interfaceValue)
+    {
+        return new EntryCursor(this, interfaceValue, EntryCursor.ANY);
+    }
+
+    // Return a cursor over the entries whose MAC address has the OUI (upper 3 bytes)
+    public EntryCursor cursorForOui(int oui)
+    {
+        return new EntryCursor(this, EntryCursor.ANY, oui);
+    }
+
+    // First entry of the ring of all entries, or null when empty
+    HashRecord firstEntry()
+    {
+        return clockHand;
+    }
+
+    // First entry of the ring of a tracked interface value, or null
+    HashRecord firstOnInterface(int interfaceValue)
+    {
+        return interfaceValue < interfaceHands.length ? interfaceHands[interfaceValue] : null;
+    }
+
+    // Return a spliterator over the stored entries, splitting by bucket range for
+    // parallel streams. During a resize it covers the old buckets not moved yet as
+    // well as the new ones (each entry is in exactly one of them), leaving the resize
+    // to the adds. The elements are the stored BridgeEntry objects and must not be
+    // modified; the table must not be changed while it is in use.
+    public Spliterator<BridgeEntry> spliterator()
+    {
+        HashRecord[] oldBuckets = ( oldData != null ) ? oldData : EntrySpliterator.NO_BUCKETS;
+        HashRecord[] buckets = ( data != null ) ? data : EntrySpliterator.NO_BUCKETS;
+        return new EntrySpliterator(this, oldBuckets, buckets, 0, oldBuckets.length + buckets.length);
+    }
+
+    // Return a sequential stream of the stored entries (see spliterator)
+    public Stream<BridgeEntry> stream()
+    {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    // Return a parallel stream of the stored entries (see spliterator)
+    public Stream<BridgeEntry> parallelStream()
+    {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    // Return an immutable, sorted copy of all entries for lock free lookups
+    // (see ForwardingSnapshot and SnapshotPublisher). With a change log the
+    // snapshot records the log sequence it includes changes up to.
+    public ForwardingSnapshot snapshot()
+    {
+        return snapshotEntries().build();
+    }
+
+    // Copy all entries for a ForwardingSnapshot in O(n) without sorting them, so a
+    // caller that locks the table can sort after unlocking it (see SnapshotPublisher)
+    ForwardingSnapshot.Entries snapshotEntries()
+    {
+        long[] keys = new long[size];
+        int[] values = new int[size];
+        int[] count = { 0 };
+        forEach((mac, interfaceValue) -> {
+            keys[count[0]] = mac;
+            values[count[0]] = interfaceValue;
+            count[0]++;
+        });
+        return new ForwardingSnapshot.Entries(keys, values, changeLog != null ? changeLog.sequence() : 0);
+    }
+
+    // Write all entries to a snapshot file that MappedHashTable can serve lookups from
+    public void writeSnapshot(Path file) throws IOException
+    {
+        MappedHashTable.write(file, this);
+    }
+
+    // Learn every entry of a snapshot file written by writeSnapshot;
+    // entries already in the table are updated (see put).
+    public void loadSnapshot(Path file) throws IOException, HashTableException
+    {
+        try ( MappedHashTable snapshot = MappedHashTable.open(file) )
+        {
+            for ( int slot = 0; slot < snapshot.capacity(); slot++ )
+            {
+                long mac = snapshot.keyAt(slot);
+                if ( mac != PrimitiveHashTable.EMPTY_KEY )
+                {
+                    BridgeEntry entry = new BridgeEntry();
+                    MacAddress.toBytes(mac, entry.macAddress);
+                    entry.interfaceValue = snapshot.valueAt(slot);
+                    put(entry);
+                }
+            }
+        }
     }
 }
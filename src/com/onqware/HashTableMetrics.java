@@ -0,0 +1,222 @@
+package com.onqware;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Hot path counters for a table. Attach with setMetrics; a table without
+// metrics only pays for a null check.
+// Counters are striped LongAdders so threads recording at the same time do not
+// contend on one cache line.
+// - hits/misses: lookups that found / did not find the MAC address
+// - inserts/updates/duplicates: new entries, re-learned entries, rejected adds
+// - evictions/refusals: entries evicted / new entries refused by the entry limits
+// - depth: nodes (HashTable) or slots (PrimitiveHashTable) visited by a lookup
+// - maxDepth: deepest position an entry was inserted at (longest bucket chain)
+public class HashTableMetrics implements HashTableMetricsMXBean {
+
+    // Depths 0 .. DEPTH_BUCKETS - 2 are counted individually, deeper ones together
+    public static final int DEPTH_BUCKETS = 33;
+
+    // Immutable copy of the counters at one point in time
+    public static class Snapshot {
+        public final long hits;
+        public final long misses;
+        public final long inserts;
+        public final long updates;
+        public final long duplicates;
+        public final long evictions;
+        public final long refusals;
+        public final long maxDepth;
+        public final long[] depthHistogram;
+
+        Snapshot(HashTableMetrics metrics)
+        {
+            hits = metrics.hits.sum();
+            misses = metrics.misses.sum();
+            inserts = metrics.inserts.sum();
+            updates = metrics.updates.sum();
+            duplicates = metrics.duplicates.sum();
+            evictions = metrics.evictions.sum();
+            refusals = metrics.refusals.sum();
+            maxDepth = metrics.maxDepth.get();
+            depthHistogram = metrics.getDepthHistogram();
+        }
+    }
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refusals = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] depthHistogram = new LongAdder[DEPTH_BUCKETS];
+
+    public HashTableMetrics()
+    {
+        for ( int i = 0; i < DEPTH_BUCKETS; i++ )
+        {
+            depthHistogram[i] = new LongAdder();
+        }
+    }
+
+    void recordHit(int depth)
+    {
+        hits.increment();
+        depthHistogram[Math.min(depth, DEPTH_BUCKETS - 1)].increment();
+    }
+
+    void recordMiss(int depth)
+    {
+        misses.increment();
+        depthHistogram[Math.min(depth, DEPTH_BUCKETS - 1)].increment();
+    }
+
+    // Count a burst lookup result (no depth information)
+    void recordBatch(int batchHits, int batchMisses)
+    {
+        hits.add(batchHits);
+        misses.add(batchMisses);
+    }
+
+    void recordInsert(int depth)
+    {
+        inserts.increment();
+        if ( depth > maxDepth.get() )
+        {
+            maxDepth.accumulate(depth);
+        }
+    }
+
+    void recordUpdate()
+    {
+        updates.increment();
+    }
+
+    void recordDuplicate()
+    {
+        duplicates.increment();
+    }
+
+    void recordEviction()
+    {
+        evictions.increment();
+    }
+
+    void recordRefusal()
+    {
+        refusals.increment();
+    }
+
+    void recordBulkLoad(int loaded, int rejected)
+    {
+        inserts.add(loaded);
+        duplicates.add(rejected);
+    }
+
+    // Return a copy of the counters
+    public Snapshot snapshot()
+    {
+        return new Snapshot(this);
+    }
+
+    // Register with the platform MBean server as com.onqware:type=HashTableMetrics,name=<name>
+    public void register(String name) throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName(name));
+    }
+
+    // Remove the registration made by register(name)
+    public void unregister(String name) throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(objectName(name));
+    }
+
+    private static ObjectName objectName(String name) throws JMException
+    {
+        return new ObjectName("com.onqware:type=HashTableMetrics,name=" + ObjectName.quote(name));
+    }
+
+    @Override
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    @Override
+    public long getInserts()
+    {
+        return inserts.sum();
+    }
+
+    @Override
+    public long getUpdates()
+    {
+        return updates.sum();
+    }
+
+    @Override
+    public long getDuplicates()
+    {
+        return duplicates.sum();
+    }
+
+    @Override
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getRefusals()
+    {
+        return refusals.sum();
+    }
+
+    @Override
+    public long getMaxDepth()
+    {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long[] getDepthHistogram()
+    {
+        long[] result = new long[DEPTH_BUCKETS];
+        for ( int i = 0; i < DEPTH_BUCKETS; i++ )
+        {
+            result[i] = depthHistogram[i].sum();
+        }
+        return result;
+    }
+
+    @Override
+    public void reset()
+    {
+        hits.reset();
+        misses.reset();
+        inserts.reset();
+        updates.reset();
+        duplicates.reset();
+        evictions.reset();
+        refusals.reset();
+        maxDepth.reset();
+        for ( LongAdder counter : depthHistogram )
+        {
+            counter.reset();
+        }
+    }
+}
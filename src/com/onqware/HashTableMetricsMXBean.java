@@ -0,0 +1,18 @@
+package com.onqware;
+
+// JMX view of HashTableMetrics
+public interface HashTableMetricsMXBean {
+
+    long getHits();
+    long getMisses();
+    long getInserts();
+    long getUpdates();
+    long getDuplicates();
+    long getEvictions();
+    long getRefusals();
+    long getMaxDepth();
+    // Lookup counts by traversal depth; the last element counts all deeper lookups
+    long[] getDepthHistogram();
+
+    void reset();
+}
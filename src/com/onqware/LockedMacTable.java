@@ -0,0 +1,112 @@
+package com.onqware;
+
+// MacTable wrapper holding the lock of the wrapped table for every operation
+// (Concurrency.LOCKED). The same lock SnapshotPublisher uses on a HashTable.
+final class LockedMacTable implements MacTable {
+
+    private final MacTable table;
+
+    LockedMacTable(MacTable table)
+    {
+        this.table = table;
+    }
+
+    @Override
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            table.add(newEntry);
+        }
+    }
+
+    @Override
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            table.add(mac, interfaceValue);
+        }
+    }
+
+    @Override
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            return table.put(mac, interfaceValue);
+        }
+    }
+
+    @Override
+    public BridgeEntry find(byte[] macAddress) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            return table.find(macAddress);
+        }
+    }
+
+    @Override
+    public int findInterface(byte[] macAddress) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            return table.findInterface(macAddress);
+        }
+    }
+
+    @Override
+    public int findInterface(long mac) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            return table.findInterface(mac);
+        }
+    }
+
+    @Override
+    public void findInterfaces(long[] macs, int[] outIfaces, int count) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            table.findInterfaces(macs, outIfaces, count);
+        }
+    }
+
+    @Override
+    public BridgeEntry remove(long mac) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            return table.remove(mac);
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        synchronized ( table )
+        {
+            return table.size();
+        }
+    }
+
+    @Override
+    public void forEach(LongIntConsumer consumer)
+    {
+        synchronized ( table )
+        {
+            table.forEach(consumer);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized ( table )
+        {
+            table.close();
+        }
+    }
+}
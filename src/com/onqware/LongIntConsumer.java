@@ -0,0 +1,9 @@
+package com.onqware;
+
+// Receives a packed 48-bit MAC address and its interface value
+// (used to walk the entries of a table without allocating BridgeEntry objects).
+@FunctionalInterface
+public interface LongIntConsumer {
+
+    void accept(long mac, int interfaceValue);
+}
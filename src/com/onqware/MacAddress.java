@@ -0,0 +1,94 @@
+package com.onqware;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Conversions between the 6 byte MAC address form used by BridgeEntry
+// and the packed 48-bit numeric form used by the primitive tables.
+// Packed value = byte[0] in bits 47-40 ... byte[5] in bits 7-0.
+public final class MacAddress {
+
+    // Views of a byte[] as big-endian short / int values at any byte offset
+    private static final VarHandle SHORT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final long SHORT_MASK = 0xFFFFL;
+    private static final long INT_MASK = 0xFFFFFFFFL;
+
+    // Mask to clear all bits above the 48 MAC address bits
+    public static final long MASK = 0xFFFFFFFFFFFFL;
+    // Bits of the interface value in a packed entry (see pack)
+    public static final int INTERFACE_BITS = 16;
+    public static final int INTERFACE_MASK = 0xFFFF;
+
+    private MacAddress()
+    {
+    }
+
+    // Return MAC address bytes (0-5) as a packed 48-bit value
+    public static long toLong(byte[] macAddress)
+    {
+        return toLong(macAddress, 0);
+    }
+
+    // Return the 6 bytes starting at offset (for example a MAC address field
+    // inside a frame) as a packed 48-bit value.
+    // Two big-endian loads (bytes 0-1 and 2-5) instead of a loop over the bytes.
+    public static long toLong(byte[] frame, int offset)
+    {
+        long high = (short) SHORT_BIG_ENDIAN.get(frame, offset) & SHORT_MASK;
+        long low = (int) INT_BIG_ENDIAN.get(frame, offset + Short.BYTES) & INT_MASK;
+        return (high << Integer.SIZE) | low;
+    }
+
+    // Return the 6 bytes starting at the absolute offset of the buffer as a packed
+    // 48-bit value. Independent of the buffer byte order; position is not changed.
+    public static long toLong(ByteBuffer frame, int offset)
+    {
+        short high = frame.getShort(offset);
+        int low = frame.getInt(offset + Short.BYTES);
+        if ( frame.order() != ByteOrder.BIG_ENDIAN )
+        {
+            high = Short.reverseBytes(high);
+            low = Integer.reverseBytes(low);
+        }
+        return ((high & SHORT_MASK) << Integer.SIZE) | (low & INT_MASK);
+    }
+
+    // Write the packed 48-bit value back into the 6 byte MAC address form
+    public static void toBytes(long mac, byte[] macAddress)
+    {
+        SHORT_BIG_ENDIAN.set(macAddress, 0, (short) (mac >>> Integer.SIZE));
+        INT_BIG_ENDIAN.set(macAddress, Short.BYTES, (int) mac);
+    }
+
+    // Reject a packed MAC address with bits above the 48 MAC address bits: a table
+    // would store it, but the 6 byte form of the address could never match it
+    static void checkKey(long mac) throws HashTableException
+    {
+        if ( (mac & ~MASK) != 0 )
+        {
+            throw new UnsupportedFeatureHashTableException("Mac address does not fit in 48 bits." );
+        }
+    }
+
+    // Return a packed MAC address and 16-bit interface value as one long entry:
+    // MAC address in bits 63-16, interface value in bits 15-0.
+    public static long pack(long mac, int interfaceValue)
+    {
+        return (mac << INTERFACE_BITS) | (interfaceValue & INTERFACE_MASK);
+    }
+
+    // Return the packed MAC address of a pack() entry
+    public static long macOf(long entry)
+    {
+        return entry >>> INTERFACE_BITS;
+    }
+
+    // Return the interface value of a pack() entry
+    public static int interfaceOf(long entry)
+    {
+        return (int) entry & INTERFACE_MASK;
+    }
+}
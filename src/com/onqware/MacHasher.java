@@ -0,0 +1,8 @@
+package com.onqware;
+
+// Strategy that turns a packed 48-bit MAC address into a hash value.
+// Tables use the low bits of the result as the bucket or slot index.
+public interface MacHasher {
+
+    int hash(long mac);
+}
@@ -0,0 +1,51 @@
+package com.onqware;
+
+// Operations shared by the MAC table engines (HashTable, PrimitiveHashTable,
+// ConcurrentHashTable, OffHeapHashTable, SwissHashTable), so callers can switch
+// engine by configuration (see MacTables.create) instead of by code changes.
+// Packed MAC addresses are 48-bit values as produced by MacAddress.toLong; add and
+// put throw UnsupportedFeatureHashTableException for a wider key. Every engine
+// throws FullHashTableException when it cannot store another entry.
+public interface MacTable extends AutoCloseable {
+
+    // Insert the entry. MAC addresses must be unique.
+    void add(BridgeEntry newEntry) throws HashTableException;
+
+    // Insert the packed MAC address and interface value. MAC addresses must be unique.
+    void add(long mac, int interfaceValue) throws HashTableException;
+
+    // Insert the packed MAC address, or if it is already learned set its interface value.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    // Like add, throws FullHashTableException when an entry limit refuses the change.
+    int put(long mac, int interfaceValue) throws HashTableException;
+
+    // Return the BridgeEntry at the specified macAddress, or null
+    BridgeEntry find(byte[] macAddress) throws HashTableException;
+
+    // Return the interfaceValue for the specified macAddress
+    int findInterface(byte[] macAddress) throws HashTableException;
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    int findInterface(long mac) throws HashTableException;
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count.
+    void findInterfaces(long[] macs, int[] outIfaces, int count) throws HashTableException;
+
+    // Remove the entry for the packed MAC address.
+    // Return the removed BridgeEntry or null if the MAC address is not in the table.
+    BridgeEntry remove(long mac) throws HashTableException;
+
+    // Return the number of entries in the table
+    int size();
+
+    // Pass every entry to the consumer (packed MAC address, interface value)
+    void forEach(LongIntConsumer consumer);
+
+    // Release resources held outside the heap; a no-op for heap based engines
+    @Override
+    default void close()
+    {
+    }
+}
@@ -0,0 +1,16 @@
+package com.onqware;
+
+// Configuration of the MacTable built by MacTables.create
+public class MacTableOptions {
+
+    // Number of entries the table is sized for up front
+    public int expectedEntries = 16;
+    public MemoryMode memoryMode = MemoryMode.OBJECTS;
+    public Concurrency concurrency = Concurrency.NONE;
+    // Places entries in buckets/slots; null for the engine default
+    public MacHasher hasher = null;
+    // Entry limit and eviction policy (OBJECTS memory mode without STRIPED
+    // concurrency, see HashTable.setMaxEntries); 0 for no limit
+    public int maxEntries = 0;
+    public EvictionPolicy evictionPolicy = EvictionPolicy.REFUSE_NEW;
+}
@@ -0,0 +1,60 @@
+package com.onqware;
+
+// Factory selecting the MacTable engine for a set of options
+public final class MacTables {
+
+    private MacTables()
+    {
+    }
+
+    // Return a new, empty table configured by options
+    public static MacTable create(MacTableOptions options)
+    {
+        if ( options.maxEntries > 0 && (options.memoryMode != MemoryMode.OBJECTS || options.concurrency == Concurrency.STRIPED) )
+        {
+            throw new IllegalArgumentException("Entry limits need OBJECTS memory mode without STRIPED concurrency");
+        }
+
+        if ( options.concurrency == Concurrency.STRIPED )
+        {
+            if ( options.memoryMode != MemoryMode.OBJECTS )
+            {
+                throw new IllegalArgumentException("STRIPED concurrency needs OBJECTS memory mode");
+            }
+            // One bucket per expected entry: the bucket array does not grow and the
+            // bucket trees keep lookups O(log n) beyond that
+            return options.hasher != null
+                ? new ConcurrentHashTable(options.expectedEntries, ConcurrentHashTable.DEFAULT_STRIPES, options.hasher)
+                : new ConcurrentHashTable(options.expectedEntries, ConcurrentHashTable.DEFAULT_STRIPES);
+        }
+
+        MacTable table;
+        switch ( options.memoryMode )
+        {
+            case PRIMITIVE:
+                table = options.hasher != null
+                    ? new PrimitiveHashTable(options.expectedEntries, options.hasher)
+                    : new PrimitiveHashTable(options.expectedEntries);
+                break;
+            case OFF_HEAP:
+                table = options.hasher != null
+                    ? new OffHeapHashTable(options.expectedEntries, options.hasher)
+                    : new OffHeapHashTable(options.expectedEntries);
+                break;
+            case SWISS:
+                table = options.hasher != null
+                    ? new SwissHashTable(options.expectedEntries, options.hasher)
+                    : new SwissHashTable(options.expectedEntries);
+                break;
+            default:
+                HashTable hashTable = options.hasher != null
+                    ? new HashTable(options.expectedEntries, options.hasher)
+                    : new HashTable(options.expectedEntries);
+                hashTable.setMaxEntries(options.maxEntries);
+                hashTable.setEvictionPolicy(options.evictionPolicy);
+                table = hashTable;
+        }
+
+        return options.concurrency == Concurrency.LOCKED ? new LockedMacTable(table) : table;
+    }
+}
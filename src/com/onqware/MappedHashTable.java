@@ -0,0 +1,265 @@
+package com.onqware;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// Read only hash table served straight from a memory mapped snapshot file.
+// The file holds the same open addressing layout as PrimitiveHashTable, so a
+// lookup probes the mapped pages directly and loading a snapshot only maps it:
+//   int MAGIC, int VERSION, int capacity (slots, power of two), int size
+//   long keys[capacity]   packed MAC address or EMPTY_KEY
+//   int values[capacity]  interface value of the key in the same slot
+// close() unmaps the file right away instead of when the mapping is garbage
+// collected; it must not be called while other threads still read the table.
+public class MappedHashTable implements AutoCloseable {
+
+    static final int MAGIC = 0x4D414354; // "MACT"
+    // 2: slots placed with MixingMacHasher(0) (PrimitiveHashTable.DEFAULT_HASHER)
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+    // Mapped file, null once closed
+    private ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int size;
+    private final int valuesOffset;
+
+    private MappedHashTable(ByteBuffer buffer) throws IOException
+    {
+        if ( buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION )
+        {
+            throw new IOException("Not a MAC table snapshot.");
+        }
+
+        this.buffer = buffer;
+        capacity = buffer.getInt(2 * Integer.BYTES);
+        size = buffer.getInt(3 * Integer.BYTES);
+        mask = capacity - 1;
+        valuesOffset = HEADER_SIZE + capacity * Long.BYTES;
+
+        if ( Integer.bitCount(capacity) != 1 || buffer.capacity() < fileSize(capacity) )
+        {
+            throw new IOException("Truncated MAC table snapshot.");
+        }
+    }
+
+    // Map the snapshot file read only
+    public static MappedHashTable open(Path file) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ) )
+        {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try
+            {
+                return new MappedHashTable(buffer);
+            }
+            catch ( IOException e )
+            {
+                OffHeapHashTable.release(buffer);
+                throw e;
+            }
+        }
+    }
+
+    // Write the entries of the table as a snapshot file
+    public static void write(Path file, HashTable table) throws IOException
+    {
+        write(file, table.size(), table::forEach);
+    }
+
+    // Write the entries of the table as a snapshot file.
+    // The slot arrays are copied as they are when the table uses the default
+    // hasher, since the layout is then the same.
+    public static void write(Path file, PrimitiveHashTable table) throws IOException
+    {
+        if ( table.hasher != PrimitiveHashTable.DEFAULT_HASHER )
+        {
+            write(file, table.size(), table::forEach);
+            return;
+        }
+
+        int capacity = table.capacity();
+        writeFile(file, capacity, table.size(), buffer -> {
+            buffer.position(HEADER_SIZE);
+            buffer.asLongBuffer().put(table.keys);
+            buffer.position(HEADER_SIZE + capacity * Long.BYTES);
+            buffer.asIntBuffer().put(table.values);
+        });
+    }
+
+    // Write count entries, placing each one in the slot PrimitiveHashTable would use
+    private static void write(Path file, int count, Consumer<LongIntConsumer> entries) throws IOException
+    {
+        int capacity = PrimitiveHashTable.capacityFor(count);
+        int mask = capacity - 1;
+        int valuesOffset = HEADER_SIZE + capacity * Long.BYTES;
+
+        writeFile(file, capacity, count, buffer -> {
+            LongBuffer keys = buffer.position(HEADER_SIZE).asLongBuffer();
+            for ( int slot = 0; slot < capacity; slot++ )
+            {
+                keys.put(slot, PrimitiveHashTable.EMPTY_KEY);
+            }
+
+            entries.accept((mac, interfaceValue) -> {
+                int slot = PrimitiveHashTable.getSlot(mac, mask);
+                while ( keys.get(slot) != PrimitiveHashTable.EMPTY_KEY )
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys.put(slot, mac);
+                buffer.putInt(valuesOffset + slot * Integer.BYTES, interfaceValue);
+            });
+        });
+    }
+
+    // Map a temporary file of the right size, let body fill the slots, then
+    // move it over file so readers never see a partially written snapshot.
+    private static void writeFile(Path file, int capacity, int size, Consumer<MappedByteBuffer> body) throws IOException
+    {
+        long length = fileSize(capacity);
+        if ( length > Integer.MAX_VALUE )
+        {
+            throw new IOException("MAC table snapshot too large to map.");
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try ( FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE) )
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(Integer.BYTES, VERSION);
+            buffer.putInt(2 * Integer.BYTES, capacity);
+            buffer.putInt(3 * Integer.BYTES, size);
+            body.accept(buffer);
+            buffer.force();
+            OffHeapHashTable.release(buffer);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long fileSize(int capacity)
+    {
+        return HEADER_SIZE + (long) capacity * (Long.BYTES + Integer.BYTES);
+    }
+
+    // Return the number of entries stored
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of slots in the snapshot
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    // Unmap the snapshot file. The table cannot be used afterwards
+    // (lookups throw IllegalStateException).
+    @Override
+    public void close()
+    {
+        if ( buffer != null )
+        {
+            ByteBuffer released = buffer;
+            buffer = null;
+            OffHeapHashTable.release(released);
+        }
+    }
+
+    // Return the mapping, unless the table is closed
+    private ByteBuffer mapped()
+    {
+        ByteBuffer mapped = buffer;
+        if ( mapped == null )
+        {
+            throw new IllegalStateException("MAC table snapshot is closed.");
+        }
+        return mapped;
+    }
+
+    long keyAt(int slot)
+    {
+        return mapped().getLong(HEADER_SIZE + slot * Long.BYTES);
+    }
+
+    int valueAt(int slot)
+    {
+        return mapped().getInt(valuesOffset + slot * Integer.BYTES);
+    }
+
+    // Return the slot holding the packed MAC address or -1 if not found.
+    // A valid snapshot always has an empty slot; a file without one is corrupt
+    // and is reported after every slot was probed instead of looping forever.
+    private int findSlot(long mac)
+    {
+        int slot = PrimitiveHashTable.getSlot(mac, mask);
+        for ( int probes = 0; probes < capacity; probes++ )
+        {
+            long current = keyAt(slot);
+            if ( current == mac )
+            {
+                return slot;
+            }
+            if ( current == PrimitiveHashTable.EMPTY_KEY )
+            {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new UncheckedIOException(new IOException("Corrupt MAC table snapshot: no empty slot."));
+    }
+
+    // Return the BridgeEntry at the specified macAddress, or null
+    public BridgeEntry find(byte[] macAddress)
+    {
+        BridgeEntry result = null;
+
+        int slot = findSlot(MacAddress.toLong(macAddress));
+        if ( slot >= 0 )
+        {
+            result = new BridgeEntry();
+            MacAddress.toBytes(keyAt(slot), result.macAddress);
+            result.interfaceValue = valueAt(slot);
+        }
+
+        return result;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac)
+    {
+        int slot = findSlot(mac);
+        return slot >= 0 ? valueAt(slot) : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Copy the snapshot into a modifiable PrimitiveHashTable (bulk copy, no rehash)
+    public PrimitiveHashTable toPrimitiveHashTable()
+    {
+        long[] keys = new long[capacity];
+        int[] values = new int[capacity];
+        mapped().duplicate().position(HEADER_SIZE).asLongBuffer().get(keys);
+        mapped().duplicate().position(valuesOffset).asIntBuffer().get(values);
+        return new PrimitiveHashTable(keys, values, size);
+    }
+}
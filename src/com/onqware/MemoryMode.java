@@ -0,0 +1,14 @@
+package com.onqware;
+
+// How a MacTable stores its entries (see MacTableOptions)
+// - OBJECTS: a node and a BridgeEntry per entry (HashTable, ConcurrentHashTable)
+// - PRIMITIVE: parallel long[] / int[] slot arrays (PrimitiveHashTable)
+// - OFF_HEAP: one 8 byte word per slot in a direct buffer (OffHeapHashTable)
+// - SWISS: slot arrays with a control byte per slot, probed a group at a time
+//   (SwissHashTable)
+public enum MemoryMode {
+    OBJECTS,
+    PRIMITIVE,
+    OFF_HEAP,
+    SWISS
+}
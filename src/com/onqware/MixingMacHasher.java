@@ -0,0 +1,39 @@
+package com.onqware;
+
+import java.security.SecureRandom;
+
+// Hash = 64-bit finalizer of MurmurHash3 applied to (MAC address ^ seed).
+// Every input bit affects every output bit, so clustered OUI/NIC values spread
+// evenly over the buckets; branch free (shifts, xors and two multiplies).
+// With a secret random seed the bucket of an address cannot be predicted, so
+// stations on the LAN cannot force entries into one bucket.
+public class MixingMacHasher implements MacHasher {
+
+    private static final long MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
+    private final long seed;
+
+    public MixingMacHasher(long seed)
+    {
+        this.seed = seed;
+    }
+
+    // Return a hasher with a random seed (one per table instance)
+    public static MixingMacHasher randomSeed()
+    {
+        return new MixingMacHasher(new SecureRandom().nextLong());
+    }
+
+    @Override
+    public int hash(long mac)
+    {
+        long x = mac ^ seed;
+        x ^= x >>> 33;
+        x *= MULTIPLIER_1;
+        x ^= x >>> 33;
+        x *= MULTIPLIER_2;
+        x ^= x >>> 33;
+        return (int) x;
+    }
+}
@@ -0,0 +1,16 @@
+package com.onqware;
+
+// Hash = the NIC bytes (low 3 bytes) of the MAC address.
+// Cheapest possible hash and the HashTable default, but any structure in the
+// NIC assignment (or an attacker choosing addresses) shows up as bucket skew.
+public class NicMacHasher implements MacHasher {
+
+    // Mask of the NIC bytes of a packed MAC address
+    private static final long NIC_MASK = 0xFFFFFFL;
+
+    @Override
+    public int hash(long mac)
+    {
+        return (int) (mac & NIC_MASK);
+    }
+}
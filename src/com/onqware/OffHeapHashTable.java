@@ -0,0 +1,359 @@
+package com.onqware;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Hash table storing MAC address and interface pairs outside the Java heap,
+// in a direct ByteBuffer (open addressing, linear probing).
+// Each slot is one 8 byte word: MAC address (48 bits) << 16 | (interface value + 1),
+// and 0 marks a free slot. Interface values must be 0 .. MAX_INTERFACE_VALUE.
+// Heap usage does not depend on the number of entries, so learning millions of
+// stations adds nothing for the garbage collector to trace.
+// close() releases the memory immediately instead of waiting for a GC.
+public class OffHeapHashTable implements MacTable {
+
+    // Largest interface value that fits in a slot
+    public static final int MAX_INTERFACE_VALUE = 0xFFFE;
+
+    // Free slot marker
+    private static final long EMPTY_SLOT = 0L;
+    private static final int INTERFACE_BITS = 16;
+    private static final long INTERFACE_MASK = 0xFFFFL;
+    private static final int SLOT_SHIFT = 3; // 8 bytes per slot
+
+    // Largest number of slots (direct buffers are indexed by int)
+    static final int MAX_CAPACITY = 1 << 27;
+
+    // Unsafe.invokeCleaner(ByteBuffer) bound to the Unsafe instance, or null
+    private static final MethodHandle INVOKE_CLEANER = lookupCleaner();
+
+    private final MacHasher hasher;
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+    private int growThreshold;
+
+    public OffHeapHashTable()
+    {
+        this(PrimitiveHashTable.MIN_CAPACITY);
+    }
+
+    // Create a table able to hold expectedEntries without growing.
+    public OffHeapHashTable(int expectedEntries)
+    {
+        this(expectedEntries, PrimitiveHashTable.DEFAULT_HASHER);
+    }
+
+    public OffHeapHashTable(int expectedEntries, MacHasher hasher)
+    {
+        this.hasher = hasher;
+        allocate(Math.min(PrimitiveHashTable.capacityFor(expectedEntries), MAX_CAPACITY));
+    }
+
+    private void allocate(int capacity)
+    {
+        // allocateDirect zero fills, which is EMPTY_SLOT
+        slots = ByteBuffer.allocateDirect(capacity << SLOT_SHIFT).order(ByteOrder.nativeOrder());
+        mask = capacity - 1;
+        size = 0;
+        growThreshold = (int) (capacity * PrimitiveHashTable.LOAD_FACTOR);
+    }
+
+    // Return the number of entries stored
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of slots currently allocated
+    public int capacity()
+    {
+        return mask + 1;
+    }
+
+    // Return the number of off-heap bytes in use
+    public long memoryUsage()
+    {
+        return slots == null ? 0 : slots.capacity();
+    }
+
+    private long slotAt(int slot)
+    {
+        return slots.getLong(slot << SLOT_SHIFT);
+    }
+
+    private static long macOf(long slotValue)
+    {
+        return slotValue >>> INTERFACE_BITS;
+    }
+
+    private static int interfaceOf(long slotValue)
+    {
+        return (int) (slotValue & INTERFACE_MASK) - 1;
+    }
+
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        add(MacAddress.toLong(newEntry.macAddress), newEntry.interfaceValue);
+    }
+
+    // Insert the packed MAC address and interface value.
+    // Same semantics as HashTable.add: MAC addresses must be unique.
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        if ( slots == null )
+        {
+            throw new NullHashTableException();
+        }
+        // The slot keeps only the low 48 bits of the key
+        MacAddress.checkKey(mac);
+        if ( interfaceValue < 0 || interfaceValue > MAX_INTERFACE_VALUE )
+        {
+            throw new UnsupportedFeatureHashTableException("Interface value out of range for an off-heap table." );
+        }
+        if ( size >= growThreshold )
+        {
+            grow();
+        }
+
+        int slot = hasher.hash(mac) & mask;
+        long current;
+        while ( (current = slotAt(slot)) != EMPTY_SLOT )
+        {
+            if ( macOf(current) == mac )
+            {
+                // UNSUPPORTED USE CASE
+                throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots.putLong(slot << SLOT_SHIFT, (mac << INTERFACE_BITS) | (interfaceValue + 1));
+        size++;
+    }
+
+    // Insert the packed MAC address, or if it is already learned (station moved)
+    // set its interface value.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            add(mac, interfaceValue);
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+        if ( interfaceValue < 0 || interfaceValue > MAX_INTERFACE_VALUE )
+        {
+            throw new UnsupportedFeatureHashTableException("Interface value out of range for an off-heap table." );
+        }
+
+        int previousValue = interfaceOf(slotAt(slot));
+        slots.putLong(slot << SLOT_SHIFT, (mac << INTERFACE_BITS) | (interfaceValue + 1));
+        return previousValue;
+    }
+
+    // Remove the entry for the packed MAC address.
+    // Return the removed BridgeEntry or null if the MAC address is not in the table.
+    public BridgeEntry remove(long mac) throws HashTableException
+    {
+        int slot = findSlot(mac);
+        if ( slot < 0 )
+        {
+            return null;
+        }
+
+        BridgeEntry result = new BridgeEntry();
+        MacAddress.toBytes(mac, result.macAddress);
+        result.interfaceValue = interfaceOf(slotAt(slot));
+
+        // Backward shift deletion: entries later in the probe sequence move back
+        // into the hole, so lookups need no tombstones.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long current;
+        while ( (current = slotAt(next)) != EMPTY_SLOT )
+        {
+            // The entry may move unless its home slot lies cyclically in (hole, next]
+            if ( ((next - (hasher.hash(macOf(current)) & mask)) & mask) >= ((next - hole) & mask) )
+            {
+                slots.putLong(hole << SLOT_SHIFT, current);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots.putLong(hole << SLOT_SHIFT, EMPTY_SLOT);
+        size--;
+
+        return result;
+    }
+
+    // Return the slot holding the packed MAC address or -1 if not found
+    private int findSlot(long mac) throws HashTableException
+    {
+        if ( slots == null )
+        {
+            throw new NullHashTableException();
+        }
+
+        int slot = hasher.hash(mac) & mask;
+        long current;
+        while ( (current = slotAt(slot)) != EMPTY_SLOT )
+        {
+            if ( macOf(current) == mac )
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Return the slot value holding the packed MAC address or EMPTY_SLOT
+    private long findSlotValue(long mac) throws HashTableException
+    {
+        int slot = findSlot(mac);
+        return slot >= 0 ? slotAt(slot) : EMPTY_SLOT;
+    }
+
+    // Return the BridgeEntry at the specified macAddress, or null.
+    // (A new BridgeEntry is built for the result; use findInterface on the hot path.)
+    public BridgeEntry find(byte[] macAddress) throws HashTableException
+    {
+        BridgeEntry result = null;
+
+        long current = findSlotValue(MacAddress.toLong(macAddress));
+        if ( current != EMPTY_SLOT )
+        {
+            result = new BridgeEntry();
+            MacAddress.toBytes(macOf(current), result.macAddress);
+            result.interfaceValue = interfaceOf(current);
+        }
+
+        return result;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress) throws HashTableException
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac) throws HashTableException
+    {
+        long current = findSlotValue(mac);
+        return current != EMPTY_SLOT ? interfaceOf(current) : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count.
+    public void findInterfaces(long[] macs, int[] outIfaces, int count) throws HashTableException
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            outIfaces[i] = findInterface(macs[i]);
+        }
+    }
+
+    // Pass every entry to the consumer
+    public void forEach(LongIntConsumer consumer)
+    {
+        if ( slots == null )
+        {
+            return;
+        }
+        for ( int slot = 0; slot <= mask; slot++ )
+        {
+            long current = slotAt(slot);
+            if ( current != EMPTY_SLOT )
+            {
+                consumer.accept(macOf(current), interfaceOf(current));
+            }
+        }
+    }
+
+    // Double the number of slots, re-insert all entries and release the old memory.
+    private void grow() throws HashTableException
+    {
+        if ( capacity() >= MAX_CAPACITY )
+        {
+            throw new FullHashTableException();
+        }
+
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = capacity();
+        allocate(oldCapacity << 1);
+
+        for ( int i = 0; i < oldCapacity; i++ )
+        {
+            long current = oldSlots.getLong(i << SLOT_SHIFT);
+            if ( current != EMPTY_SLOT )
+            {
+                int slot = hasher.hash(macOf(current)) & mask;
+                while ( slotAt(slot) != EMPTY_SLOT )
+                {
+                    slot = (slot + 1) & mask;
+                }
+                slots.putLong(slot << SLOT_SHIFT, current);
+                size++;
+            }
+        }
+        release(oldSlots);
+    }
+
+    // Release the off-heap memory. The table cannot be used afterwards
+    // (operations throw NullHashTableException).
+    @Override
+    public void close()
+    {
+        if ( slots != null )
+        {
+            ByteBuffer released = slots;
+            slots = null;
+            size = 0;
+            release(released);
+        }
+    }
+
+    // Free a direct buffer now rather than when it is garbage collected.
+    // Falls back to the garbage collector if the JDK does not allow it.
+    // (Also unmaps the MappedByteBuffer of a MappedHashTable.)
+    static void release(ByteBuffer buffer)
+    {
+        if ( INVOKE_CLEANER != null )
+        {
+            try
+            {
+                INVOKE_CLEANER.invokeExact(buffer);
+            }
+            catch ( Throwable e )
+            {
+                // left to the garbage collector
+            }
+        }
+    }
+
+    private static MethodHandle lookupCleaner()
+    {
+        try
+        {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        }
+        catch ( ReflectiveOperationException | RuntimeException e )
+        {
+            return null;
+        }
+    }
+}
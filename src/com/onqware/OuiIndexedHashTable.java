@@ -0,0 +1,369 @@
+package com.onqware;
+
+import java.util.Arrays;
+
+// Two level MAC table exploiting vendor clustering: a network has few OUIs
+// and many NICs per OUI.
+// - Level 1: every OUI (bytes 0-2) is interned into a small dense id.
+// - Level 2: one open addressing table per OUI id holding (24-bit NIC, interface)
+//   as two int slots, so an entry costs 8 bytes per slot instead of a
+//   HashRecord + BridgeEntry + byte[] on the heap.
+// The per OUI tables also make "all stations of vendor X" and flushing a
+// vendor proportional to that vendor's entries. They start at MIN_NIC_CAPACITY
+// slots, so a vendor with one or two stations costs a few slots.
+public class OuiIndexedHashTable {
+
+    // Free slot marker (OUI and NIC values are 24 bit, never negative)
+    static final int EMPTY = -1;
+    static final int NIC_BITS = 24;
+    static final long NIC_MASK = 0xFFFFFFL;
+    // Slots of a new per OUI table (holds 3 entries at LOAD_FACTOR before growing)
+    static final int MIN_NIC_CAPACITY = 4;
+
+    // OUI -> id map (open addressing)
+    private int[] ouiKeys;
+    private int[] ouiIdValues;
+    // id -> OUI and per OUI NIC tables, indexed by id
+    private int[] ouis = new int[PrimitiveHashTable.MIN_CAPACITY];
+    private int[][] nicKeys = new int[PrimitiveHashTable.MIN_CAPACITY][];
+    private int[][] nicValues = new int[PrimitiveHashTable.MIN_CAPACITY][];
+    private int[] nicCounts = new int[PrimitiveHashTable.MIN_CAPACITY];
+    private int ouiCount;
+    private int size;
+
+    public OuiIndexedHashTable()
+    {
+        ouiKeys = emptySlots(PrimitiveHashTable.MIN_CAPACITY);
+        ouiIdValues = new int[PrimitiveHashTable.MIN_CAPACITY];
+    }
+
+    private static int[] emptySlots(int capacity)
+    {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int slotFor(int key, int mask)
+    {
+        return PrimitiveHashTable.DEFAULT_HASHER.hash(key) & mask;
+    }
+
+    // Return the number of entries stored
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of distinct OUIs interned
+    public int ouiCount()
+    {
+        return ouiCount;
+    }
+
+    // Return the id of the OUI or EMPTY if it was never seen
+    private int findOuiId(int oui)
+    {
+        int mask = ouiKeys.length - 1;
+        int slot = slotFor(oui, mask);
+        int current;
+        while ( (current = ouiKeys[slot]) != EMPTY )
+        {
+            if ( current == oui )
+            {
+                return ouiIdValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    // Return the id of the OUI, interning it if needed
+    private int internOui(int oui)
+    {
+        int id = findOuiId(oui);
+        if ( id != EMPTY )
+        {
+            return id;
+        }
+
+        if ( ouiCount >= ouiKeys.length * PrimitiveHashTable.LOAD_FACTOR )
+        {
+            int[] oldKeys = ouiKeys;
+            int[] oldIds = ouiIdValues;
+            ouiKeys = emptySlots(oldKeys.length << 1);
+            ouiIdValues = new int[oldKeys.length << 1];
+            for ( int i = 0; i < oldKeys.length; i++ )
+            {
+                if ( oldKeys[i] != EMPTY )
+                {
+                    linkOui(oldKeys[i], oldIds[i]);
+                }
+            }
+        }
+        if ( ouiCount == ouis.length )
+        {
+            int capacity = ouiCount << 1;
+            ouis = Arrays.copyOf(ouis, capacity);
+            nicKeys = Arrays.copyOf(nicKeys, capacity);
+            nicValues = Arrays.copyOf(nicValues, capacity);
+            nicCounts = Arrays.copyOf(nicCounts, capacity);
+        }
+
+        id = ouiCount++;
+        ouis[id] = oui;
+        linkOui(oui, id);
+        return id;
+    }
+
+    private void linkOui(int oui, int id)
+    {
+        int mask = ouiKeys.length - 1;
+        int slot = slotFor(oui, mask);
+        while ( ouiKeys[slot] != EMPTY )
+        {
+            slot = (slot + 1) & mask;
+        }
+        ouiKeys[slot] = oui;
+        ouiIdValues[slot] = id;
+    }
+
+    // Return the slot of nic in the table of OUI id, or -1
+    private int findNicSlot(int id, int nic)
+    {
+        int[] keys = nicKeys[id];
+        if ( keys == null )
+        {
+            return -1;
+        }
+
+        int mask = keys.length - 1;
+        int slot = slotFor(nic, mask);
+        int current;
+        while ( (current = keys[slot]) != EMPTY )
+        {
+            if ( current == nic )
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        add(MacAddress.toLong(newEntry.macAddress), newEntry.interfaceValue);
+    }
+
+    // Insert the packed MAC address and interface value. MAC addresses must be unique.
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        // A wider key would give an OUI outside 24 bits (possibly the EMPTY marker)
+        MacAddress.checkKey(mac);
+        int id = findOuiId((int) (mac >>> NIC_BITS));
+        if ( id != EMPTY && findNicSlot(id, (int) (mac & NIC_MASK)) >= 0 )
+        {
+            // UNSUPPORTED USE CASE
+            throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
+        }
+        insert(mac, interfaceValue, false);
+    }
+
+    // Insert the packed MAC address, or if it is already learned set its interface value.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        return insert(mac, interfaceValue, true);
+    }
+
+    private int insert(long mac, int interfaceValue, boolean replace)
+    {
+        int id = internOui((int) (mac >>> NIC_BITS));
+        int nic = (int) (mac & NIC_MASK);
+
+        int slot = findNicSlot(id, nic);
+        if ( slot >= 0 )
+        {
+            int previousValue = nicValues[id][slot];
+            if ( replace )
+            {
+                nicValues[id][slot] = interfaceValue;
+            }
+            return previousValue;
+        }
+
+        if ( nicKeys[id] == null )
+        {
+            nicKeys[id] = emptySlots(MIN_NIC_CAPACITY);
+            nicValues[id] = new int[MIN_NIC_CAPACITY];
+        }
+        else if ( nicCounts[id] >= nicKeys[id].length * PrimitiveHashTable.LOAD_FACTOR )
+        {
+            growNics(id);
+        }
+        linkNic(id, nic, interfaceValue);
+        nicCounts[id]++;
+        size++;
+        return BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    private void linkNic(int id, int nic, int interfaceValue)
+    {
+        int[] keys = nicKeys[id];
+        int mask = keys.length - 1;
+        int slot = slotFor(nic, mask);
+        while ( keys[slot] != EMPTY )
+        {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = nic;
+        nicValues[id][slot] = interfaceValue;
+    }
+
+    private void growNics(int id)
+    {
+        int[] oldKeys = nicKeys[id];
+        int[] oldValues = nicValues[id];
+        nicKeys[id] = emptySlots(oldKeys.length << 1);
+        nicValues[id] = new int[oldKeys.length << 1];
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldKeys[i] != EMPTY )
+            {
+                linkNic(id, oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac)
+    {
+        int id = findOuiId((int) (mac >>> NIC_BITS));
+        if ( id == EMPTY )
+        {
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+        int slot = findNicSlot(id, (int) (mac & NIC_MASK));
+        return slot >= 0 ? nicValues[id][slot] : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Remove the packed MAC address. Return its interface value or
+    // INVALID_INTERFACE_VALUE if it was not in the table.
+    public int remove(long mac)
+    {
+        int id = findOuiId((int) (mac >>> NIC_BITS));
+        if ( id == EMPTY )
+        {
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+        int slot = findNicSlot(id, (int) (mac & NIC_MASK));
+        if ( slot < 0 )
+        {
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+
+        int[] keys = nicKeys[id];
+        int[] values = nicValues[id];
+        int removedValue = values[slot];
+        int mask = keys.length - 1;
+
+        // Backward shift deletion: move later entries of the probe run into the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while ( keys[next] != EMPTY )
+        {
+            int home = slotFor(keys[next], mask);
+            // Move the entry if its home slot is not cyclically within (hole, next]
+            if ( ((next - home) & mask) >= ((next - hole) & mask) )
+            {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+
+        nicCounts[id]--;
+        size--;
+        return removedValue;
+    }
+
+    // Return the number of stations learned for the OUI (bytes 0-2 as a 24-bit value)
+    public int countByOui(int oui)
+    {
+        int id = findOuiId(oui);
+        return id == EMPTY ? 0 : nicCounts[id];
+    }
+
+    // Pass every station of the OUI to the consumer (packed MAC address, interface)
+    public void forEachInOui(int oui, LongIntConsumer consumer)
+    {
+        int id = findOuiId(oui);
+        if ( id == EMPTY || nicKeys[id] == null )
+        {
+            return;
+        }
+
+        long prefix = (long) oui << NIC_BITS;
+        int[] keys = nicKeys[id];
+        int[] values = nicValues[id];
+        for ( int slot = 0; slot < keys.length; slot++ )
+        {
+            if ( keys[slot] != EMPTY )
+            {
+                consumer.accept(prefix | keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Pass every entry to the consumer, vendor by vendor
+    public void forEach(LongIntConsumer consumer)
+    {
+        for ( int id = 0; id < ouiCount; id++ )
+        {
+            forEachInOui(ouis[id], consumer);
+        }
+    }
+
+    // Remove every station of the OUI and release its table.
+    // Return the number of entries removed.
+    public int flushOui(int oui)
+    {
+        int id = findOuiId(oui);
+        if ( id == EMPTY )
+        {
+            return 0;
+        }
+
+        int removed = nicCounts[id];
+        nicKeys[id] = null;
+        nicValues[id] = null;
+        nicCounts[id] = 0;
+        size -= removed;
+        return removed;
+    }
+
+    // Return the approximate number of bytes used by the slot arrays
+    public long memoryUsage()
+    {
+        long bytes = (long) ouiKeys.length * 2 * Integer.BYTES + (long) ouis.length * 3 * Integer.BYTES;
+        for ( int id = 0; id < ouiCount; id++ )
+        {
+            if ( nicKeys[id] != null )
+            {
+                bytes += (long) nicKeys[id].length * 2 * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package com.onqware;
+
+import java.util.Arrays;
+
+// Reusable set of interface (port) numbers filled by GroupHashTable.findPorts,
+// one bit per port. Keep one per forwarding thread: a lookup copies the port
+// words of the group into it and allocates nothing.
+public class PortSet {
+
+    final long[] words;
+    // Words that may have bits set; the rest are zero
+    int usedWords;
+
+    // Create a set able to hold ports 0 .. maxPorts - 1
+    public PortSet(int maxPorts)
+    {
+        words = new long[Math.max(1, (maxPorts + Long.SIZE - 1) / Long.SIZE)];
+    }
+
+    // Return the number of ports the set can hold
+    public int capacity()
+    {
+        return words.length * Long.SIZE;
+    }
+
+    public boolean contains(int port)
+    {
+        int word = port >>> 6;
+        return port >= 0 && word < usedWords && (words[word] & (1L << port)) != 0;
+    }
+
+    // Return the smallest port >= fromPort in the set, or -1 when there is none.
+    // Iterate with: for ( int p = set.nextPort(0); p >= 0; p = set.nextPort(p + 1) )
+    public int nextPort(int fromPort)
+    {
+        int word = fromPort >>> 6;
+        if ( fromPort < 0 || word >= usedWords )
+        {
+            return -1;
+        }
+
+        long bits = words[word] & (-1L << fromPort);
+        while ( bits == 0 )
+        {
+            if ( ++word >= usedWords )
+            {
+                return -1;
+            }
+            bits = words[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    // Return the number of ports in the set
+    public int count()
+    {
+        int count = 0;
+        for ( int i = 0; i < usedWords; i++ )
+        {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(words, 0, usedWords, 0);
+        usedWords = 0;
+    }
+}
@@ -0,0 +1,489 @@
+package com.onqware;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+// Hash table implementation storing MAC address and interface pairs in parallel
+// primitive arrays (open addressing, linear probing).
+// - keys: packed 48-bit MAC address (see MacAddress), EMPTY_KEY marks a free slot
+// - values: interface value for the key in the same slot
+// No objects are allocated per add/find; the arrays are only reallocated
+// when the table grows past its load factor.
+public class PrimitiveHashTable implements MacTable {
+
+    // Marks a free slot. A packed MAC address never has the upper 16 bits set.
+    static final long EMPTY_KEY = -1L;
+
+    // Smallest number of slots allocated
+    static final int MIN_CAPACITY = 16;
+    // Largest number of slots allocated (largest power of two array length)
+    static final int MAX_CAPACITY = 1 << 30;
+    // Default load factor: grow the table when size exceeds capacity * LOAD_FACTOR
+    static final float LOAD_FACTOR = 0.75f;
+
+    // Hasher used when none is given; snapshot files are laid out with it
+    static final MacHasher DEFAULT_HASHER = new MixingMacHasher(0);
+
+    long[] keys;
+    int[] values;
+    int mask;
+    int size;
+    int growThreshold;
+    // Grow when size exceeds capacity * loadFactor
+    private final float loadFactor;
+    // Bits a key may use (packed MAC addresses: MacAddress.MASK)
+    private final long keyMask;
+    // Maps a MAC address to its first slot (low bits of the hash)
+    final MacHasher hasher;
+
+    // Hot path counters, null when not instrumented
+    private HashTableMetrics metrics;
+
+    // Reusable slot positions for the batch lookups
+    private int[] batchSlots = new int[0];
+
+    public PrimitiveHashTable()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    // Create a table able to hold expectedEntries without growing.
+    public PrimitiveHashTable(int expectedEntries)
+    {
+        this(expectedEntries, DEFAULT_HASHER);
+    }
+
+    // Create a table able to hold expectedEntries without growing, placing
+    // entries with hasher (e.g. MixingMacHasher.randomSeed()).
+    public PrimitiveHashTable(int expectedEntries, MacHasher hasher)
+    {
+        this(expectedEntries, hasher, LOAD_FACTOR);
+    }
+
+    // Create a table able to hold expectedEntries at loadFactor (below 1), e.g. to
+    // compare probe lengths at high load factors
+    public PrimitiveHashTable(int expectedEntries, MacHasher hasher, float loadFactor)
+    {
+        this(expectedEntries, hasher, loadFactor, MacAddress.MASK);
+    }
+
+    // Create a table for keys wider than a MAC address (e.g. VlanHashTable keys)
+    PrimitiveHashTable(int expectedEntries, MacHasher hasher, float loadFactor, long keyMask)
+    {
+        if ( !(loadFactor > 0 && loadFactor < 1) )
+        {
+            throw new IllegalArgumentException("Load factor must be in (0, 1)");
+        }
+        this.hasher = hasher;
+        this.loadFactor = loadFactor;
+        this.keyMask = keyMask;
+        allocate(capacityFor(expectedEntries, loadFactor));
+    }
+
+    // Wrap slot arrays laid out by this class (power of two length), e.g. from a snapshot
+    PrimitiveHashTable(long[] keys, int[] values, int size)
+    {
+        this.hasher = DEFAULT_HASHER;
+        this.loadFactor = LOAD_FACTOR;
+        this.keyMask = MacAddress.MASK;
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.growThreshold = (int) (keys.length * LOAD_FACTOR);
+    }
+
+    // Return the number of slots needed to hold entries under the load factor
+    static int capacityFor(int entries)
+    {
+        return capacityFor(entries, LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int entries, float loadFactor)
+    {
+        long needed = (long) Math.ceil(Math.max(entries, 1) / (double) loadFactor);
+        int capacity = MIN_CAPACITY;
+        while ( capacity < needed && capacity < MAX_CAPACITY )
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // Return the first slot to probe for the key in a table laid out with DEFAULT_HASHER
+    static int getSlot(long mac, int mask)
+    {
+        return DEFAULT_HASHER.hash(mac) & mask;
+    }
+
+    // Return the first slot to probe for the key
+    private int slotFor(long mac)
+    {
+        return hasher.hash(mac) & mask;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        mask = capacity - 1;
+        size = 0;
+        growThreshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    // initialize the table by clearing all entries
+    public void initialize()
+    {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    // Attach hot path counters, or detach them with null
+    public void setMetrics(HashTableMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    // Return the number of entries stored
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of slots currently allocated
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        add(MacAddress.toLong(newEntry.macAddress), newEntry.interfaceValue);
+    }
+
+    // Insert the packed MAC address and interface value.
+    // Same semantics as HashTable.add: MAC addresses must be unique.
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        checkKey(mac);
+        if ( size >= growThreshold )
+        {
+            if ( keys.length < MAX_CAPACITY )
+            {
+                grow();
+            }
+            else if ( size >= keys.length - 1 )
+            {
+                // Full: one slot always stays free so every probe ends
+                throw new FullHashTableException();
+            }
+        }
+
+        int slot = slotFor(mac);
+        int depth = 1;
+        long current;
+        while ( (current = keys[slot]) != EMPTY_KEY )
+        {
+            if ( current == mac )
+            {
+                if ( metrics != null )
+                {
+                    metrics.recordDuplicate();
+                }
+                // UNSUPPORTED USE CASE
+                throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
+            }
+            slot = (slot + 1) & mask;
+            depth++;
+        }
+
+        keys[slot] = mac;
+        values[slot] = interfaceValue;
+        size++;
+        if ( metrics != null )
+        {
+            metrics.recordInsert(depth);
+        }
+    }
+
+    // Insert the packed MAC address, or if it is already learned (station moved)
+    // set its interface value. Allocation free unless the table has to grow.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        checkKey(mac);
+        int slot = slotFor(mac);
+        long current;
+        while ( (current = keys[slot]) != EMPTY_KEY )
+        {
+            if ( current == mac )
+            {
+                int previousValue = values[slot];
+                values[slot] = interfaceValue;
+                if ( metrics != null )
+                {
+                    metrics.recordUpdate();
+                }
+                return previousValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        add(mac, interfaceValue);
+        return BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Remove the packed MAC address. Return the removed BridgeEntry or null.
+    // (A new BridgeEntry is built for the result; use removeInterface on the hot path.)
+    public BridgeEntry remove(long mac)
+    {
+        BridgeEntry result = null;
+
+        int slot = slotOf(mac);
+        if ( slot >= 0 )
+        {
+            result = new BridgeEntry();
+            MacAddress.toBytes(mac, result.macAddress);
+            result.interfaceValue = values[slot];
+            removeSlot(slot);
+        }
+
+        return result;
+    }
+
+    // Remove the packed MAC address. Return its interface value or
+    // INVALID_INTERFACE_VALUE if it was not in the table (allocation free; use
+    // remove to tell a missing entry from one stored with INVALID_INTERFACE_VALUE).
+    public int removeInterface(long mac)
+    {
+        int slot = slotOf(mac);
+        if ( slot < 0 )
+        {
+            return BridgeEntry.INVALID_INTERFACE_VALUE;
+        }
+        int removedValue = values[slot];
+        removeSlot(slot);
+        return removedValue;
+    }
+
+    // Return the slot holding the packed MAC address or -1 if not found
+    // (findSlot without the metrics, for removals)
+    private int slotOf(long mac)
+    {
+        int slot = slotFor(mac);
+        long current;
+        while ( (current = keys[slot]) != EMPTY_KEY )
+        {
+            if ( current == mac )
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Remove every entry whose key matches. Return the number removed.
+    int removeAll(LongPredicate matches)
+    {
+        int removed = 0;
+        int slot = 0;
+        while ( slot < keys.length )
+        {
+            long key = keys[slot];
+            if ( key != EMPTY_KEY && matches.test(key) )
+            {
+                // A later entry may have been shifted into slot: look at it again
+                removeSlot(slot);
+                removed++;
+            }
+            else
+            {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    // Empty the slot with backward shift deletion: entries later in the probe
+    // sequence move back into the hole, so lookups need no tombstones.
+    private void removeSlot(int slot)
+    {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        long key;
+        while ( (key = keys[next]) != EMPTY_KEY )
+        {
+            // The entry may move unless its home slot lies cyclically in (hole, next]
+            if ( ((next - slotFor(key)) & mask) >= ((next - hole) & mask) )
+            {
+                keys[hole] = key;
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY_KEY;
+        size--;
+    }
+
+    // Return the slot holding the packed MAC address or -1 if not found
+    int findSlot(long mac)
+    {
+        int slot = slotFor(mac);
+        int depth = 1;
+        long current;
+        while ( (current = keys[slot]) != EMPTY_KEY )
+        {
+            if ( current == mac )
+            {
+                if ( metrics != null )
+                {
+                    metrics.recordHit(depth);
+                }
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+            depth++;
+        }
+        if ( metrics != null )
+        {
+            metrics.recordMiss(depth);
+        }
+        return -1;
+    }
+
+    // Return the BridgeEntry at the specified macAddress
+    // (A new BridgeEntry is built for the result; use findInterface on the hot path.)
+    public BridgeEntry find(byte[] macAddress)
+    {
+        BridgeEntry result = null;
+
+        int slot = findSlot(MacAddress.toLong(macAddress));
+        if ( slot >= 0 )
+        {
+            result = new BridgeEntry();
+            MacAddress.toBytes(keys[slot], result.macAddress);
+            result.interfaceValue = values[slot];
+        }
+
+        return result;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac)
+    {
+        int slot = findSlot(mac);
+        return slot >= 0 ? values[slot] : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count.
+    // All home slots are computed first and the probes are then advanced one slot
+    // per key in turn, so the cache misses of the burst overlap.
+    public void findInterfaces(long[] macs, int[] outIfaces, int count)
+    {
+        if ( batchSlots.length < count )
+        {
+            batchSlots = new int[count];
+        }
+
+        int[] slots = batchSlots;
+        for ( int i = 0; i < count; i++ )
+        {
+            outIfaces[i] = BridgeEntry.INVALID_INTERFACE_VALUE;
+            slots[i] = slotFor(macs[i]);
+        }
+
+        int active = count;
+        int misses = 0;
+        while ( active > 0 )
+        {
+            active = 0;
+            for ( int i = 0; i < count; i++ )
+            {
+                int slot = slots[i];
+                if ( slot < 0 )
+                {
+                    continue;
+                }
+
+                long current = keys[slot];
+                if ( current == macs[i] )
+                {
+                    outIfaces[i] = values[slot];
+                    slots[i] = -1;
+                }
+                else if ( current == EMPTY_KEY )
+                {
+                    slots[i] = -1;
+                    misses++;
+                }
+                else
+                {
+                    slots[i] = (slot + 1) & mask;
+                    active++;
+                }
+            }
+        }
+
+        if ( metrics != null )
+        {
+            metrics.recordBatch(count - misses, misses);
+        }
+    }
+
+    // Pass every entry to the consumer
+    public void forEach(LongIntConsumer consumer)
+    {
+        for ( int slot = 0; slot < keys.length; slot++ )
+        {
+            if ( keys[slot] != EMPTY_KEY )
+            {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Reject a key with bits outside keyMask: it would be stored but never match
+    // the byte[] form of its MAC address
+    private void checkKey(long mac) throws HashTableException
+    {
+        if ( (mac & ~keyMask) != 0 )
+        {
+            throw new UnsupportedFeatureHashTableException("Mac address does not fit in 48 bits." );
+        }
+    }
+
+    // Double the number of slots and re-insert all entries.
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            long mac = oldKeys[i];
+            if ( mac != EMPTY_KEY )
+            {
+                int slot = slotFor(mac);
+                while ( keys[slot] != EMPTY_KEY )
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = mac;
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.onqware;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Copy-on-publish front end for a HashTable with one learning side and many
+// forwarding threads.
+// - Writers go through add/put/remove/age, which update the table under its lock.
+// - Readers use findInterface/snapshot, which only read a volatile reference to
+//   the current ForwardingSnapshot: no locks and no waiting on writers.
+// A background thread rebuilds and publishes a new snapshot every period when
+// the table changed, or as soon as deltaThreshold changes are pending.
+// Lookups see changes once the next snapshot is published. The entries are
+// copied under the table lock and sorted after it is released, so writers only
+// wait for the O(n) copy.
+public class SnapshotPublisher implements AutoCloseable {
+
+    private final HashTable table;
+    private final int deltaThreshold;
+    private final ScheduledExecutorService executor;
+
+    private volatile ForwardingSnapshot current;
+    // Copy number of current; a snapshot copied earlier than current is dropped
+    // when its sort finishes later. Guarded by publishLock.
+    private long publishedCopy;
+    private final Object publishLock = new Object();
+
+    // Guarded by the table lock
+    private int pendingChanges;
+    private boolean publishQueued;
+    private long copies;
+    private boolean closed;
+
+    // Publish table snapshots every period (if changed) or after deltaThreshold changes.
+    public SnapshotPublisher(HashTable table, long period, TimeUnit unit, int deltaThreshold)
+    {
+        this.table = table;
+        this.deltaThreshold = deltaThreshold;
+
+        ForwardingSnapshot.Entries entries;
+        synchronized ( table )
+        {
+            entries = table.snapshotEntries();
+        }
+        current = entries.build();
+
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mac-table-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::publishIfChanged, period, period, unit);
+    }
+
+    // Return the snapshot currently served to readers
+    public ForwardingSnapshot snapshot()
+    {
+        return current;
+    }
+
+    // Return the interfaceValue for the specified macAddress from the current snapshot
+    public int findInterface(byte[] macAddress)
+    {
+        return current.findInterface(macAddress);
+    }
+
+    // Return the interfaceValue for the packed MAC address from the current snapshot
+    public int findInterface(long mac)
+    {
+        return current.findInterface(mac);
+    }
+
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            table.add(newEntry);
+            changed(1);
+        }
+    }
+
+    public int put(BridgeEntry newEntry) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            int previousValue = table.put(newEntry);
+            if ( previousValue != newEntry.interfaceValue )
+            {
+                changed(1);
+            }
+            return previousValue;
+        }
+    }
+
+    public BridgeEntry remove(byte[] macAddress) throws HashTableException
+    {
+        synchronized ( table )
+        {
+            BridgeEntry removed = table.remove(macAddress);
+            if ( removed != null )
+            {
+                changed(1);
+            }
+            return removed;
+        }
+    }
+
+    public int age(int bucketCount)
+    {
+        synchronized ( table )
+        {
+            int removed = table.age(bucketCount);
+            changed(removed);
+            return removed;
+        }
+    }
+
+    // Rebuild and publish a snapshot now
+    public void publish()
+    {
+        ForwardingSnapshot.Entries entries;
+        long copy;
+        synchronized ( table )
+        {
+            entries = table.snapshotEntries();
+            copy = ++copies;
+            pendingChanges = 0;
+            publishQueued = false;
+        }
+
+        ForwardingSnapshot snapshot = entries.build();
+        synchronized ( publishLock )
+        {
+            if ( copy > publishedCopy )
+            {
+                current = snapshot;
+                publishedCopy = copy;
+            }
+        }
+    }
+
+    // Called with the table lock held. Nothing is scheduled once closed.
+    private void changed(int changes)
+    {
+        pendingChanges += changes;
+        if ( pendingChanges >= deltaThreshold && !publishQueued && !closed )
+        {
+            publishQueued = true;
+            executor.execute(this::publish);
+        }
+    }
+
+    private void publishIfChanged()
+    {
+        boolean changed;
+        synchronized ( table )
+        {
+            changed = pendingChanges > 0;
+        }
+        if ( changed )
+        {
+            publish();
+        }
+    }
+
+    // Stop the background publishing. The table can still be changed through the
+    // publisher afterwards, but no further snapshot is published except by publish().
+    @Override
+    public void close()
+    {
+        synchronized ( table )
+        {
+            closed = true;
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.onqware;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// GroupMatcher working on the 16 control bytes as two little endian longs
+// (byte i of a word is bits 8i .. 8i + 7). Byte compares are exact: a lane only
+// matches when its byte is equal, without the borrow false positives of the
+// classic "has zero byte" test.
+final class SwarGroupMatcher implements GroupMatcher {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long MSBS = 0x8080808080808080L;
+    // Moves bit 8i of a word to bit 56 + i
+    private static final long GATHER = 0x0102040810204080L;
+
+    @Override
+    public int matchHash(byte[] control, int offset, byte h2)
+    {
+        long pattern = LSBS * (h2 & 0xFF);
+        return lanes(zeroBytes(word(control, offset) ^ pattern))
+                | lanes(zeroBytes(word(control, offset + 8) ^ pattern)) << 8;
+    }
+
+    @Override
+    public int matchEmpty(byte[] control, int offset)
+    {
+        // EMPTY (0x80) is the only control byte with the high bit set and bit 1 clear
+        long low = word(control, offset);
+        long high = word(control, offset + 8);
+        return lanes(low & ~(low << 6) & MSBS) | lanes(high & ~(high << 6) & MSBS) << 8;
+    }
+
+    @Override
+    public int matchAvailable(byte[] control, int offset)
+    {
+        // EMPTY and DELETED have the high bit set, hash fragments do not
+        return lanes(word(control, offset) & MSBS) | lanes(word(control, offset + 8) & MSBS) << 8;
+    }
+
+    private static long word(byte[] control, int offset)
+    {
+        return (long) LONGS.get(control, offset);
+    }
+
+    // Set the high bit of every zero byte of x (and no other bit)
+    private static long zeroBytes(long x)
+    {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    // Compress the high bits of the 8 bytes into an 8-bit lane mask
+    private static int lanes(long highBits)
+    {
+        return (int) (((highBits >>> 7) * GATHER) >>> 56);
+    }
+
+    // Return the Vector API matcher, or null when it was not built (vector/ source
+    // root) or jdk.incubator.vector is not available at run time
+    static GroupMatcher loadVectorMatcher()
+    {
+        try
+        {
+            GroupMatcher matcher = (GroupMatcher) Class.forName("com.onqware.VectorGroupMatcher").getDeclaredConstructor().newInstance();
+            matcher.matchEmpty(new byte[SwissHashTable.GROUP_SIZE], 0);
+            return matcher;
+        }
+        catch ( ReflectiveOperationException | LinkageError e )
+        {
+            return null;
+        }
+    }
+}
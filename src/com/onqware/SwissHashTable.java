@@ -0,0 +1,342 @@
+package com.onqware;
+
+import java.util.Arrays;
+
+// Hash table storing MAC address and interface pairs in parallel primitive
+// arrays, probed a group of GROUP_SIZE slots at a time (SwissTable layout).
+// - control: one byte per slot, EMPTY, DELETED or the low 7 bits of the hash (h2)
+// - keys / values: packed 48-bit MAC address and interface value of the slot
+// The rest of the hash picks the first group; a lookup compares h2 with all the
+// control bytes of a group at once (see GroupMatcher) and only reads the keys
+// whose control byte matches, so most probes touch one 16 byte control line and
+// one key. Groups are probed in triangular order and a probe ends at the first
+// group with an EMPTY slot, which keeps lookups short at load factors up to 0.875
+// and beyond, where linear probing (PrimitiveHashTable) slows down.
+public class SwissHashTable implements MacTable {
+
+    // Slots compared per probe
+    static final int GROUP_SIZE = 16;
+    private static final int GROUP_SHIFT = 4;
+
+    // Control bytes: free slot, removed entry; hash fragments are 0 .. 0x7F
+    static final byte EMPTY = (byte) 0x80;
+    static final byte DELETED = (byte) 0xFE;
+    private static final int H2_MASK = 0x7F;
+    private static final int H2_BITS = 7;
+
+    // Grow the table when entries plus removed slots exceed capacity * loadFactor
+    public static final float DEFAULT_LOAD_FACTOR = 0.875f;
+    // Largest number of slots allocated. The first group comes from hash bits
+    // 7 .. 31, so more than 2^25 groups (GROUP_SIZE slots each) would leave some
+    // groups that no probe starts at.
+    static final int MAX_CAPACITY = 1 << (Integer.SIZE - H2_BITS + GROUP_SHIFT);
+
+    private final MacHasher hasher;
+    private final GroupMatcher matcher;
+    private final float loadFactor;
+
+    byte[] control;
+    long[] keys;
+    int[] values;
+    private int groupMask;
+    private int size;
+    // Slots marked DELETED, reclaimed by the next rehash
+    private int deleted;
+    private int growThreshold;
+
+    public SwissHashTable()
+    {
+        this(GROUP_SIZE);
+    }
+
+    // Create a table able to hold expectedEntries without growing.
+    public SwissHashTable(int expectedEntries)
+    {
+        this(expectedEntries, PrimitiveHashTable.DEFAULT_HASHER);
+    }
+
+    // Control bytes are compared with SWAR by default: on JDK 17 the 128-bit Vector
+    // API compare did not beat it (see SwissTableBenchmark); pass
+    // GroupMatcher.vectorOrSwar() to the constructor below to use it.
+    public SwissHashTable(int expectedEntries, MacHasher hasher)
+    {
+        this(expectedEntries, hasher, DEFAULT_LOAD_FACTOR, GroupMatcher.SWAR);
+    }
+
+    // Create a table able to hold expectedEntries at loadFactor (below 1, so every
+    // probe finds an EMPTY slot) comparing control bytes with matcher.
+    public SwissHashTable(int expectedEntries, MacHasher hasher, float loadFactor, GroupMatcher matcher)
+    {
+        if ( !(loadFactor > 0 && loadFactor < 1) || matcher == null )
+        {
+            throw new IllegalArgumentException("Load factor must be in (0, 1) and a matcher is needed");
+        }
+        this.hasher = hasher;
+        this.matcher = matcher;
+        this.loadFactor = loadFactor;
+        allocate(capacityFor(expectedEntries, loadFactor));
+    }
+
+    // Return the number of slots (a power of two, at least GROUP_SIZE) needed to
+    // hold entries under the load factor
+    static int capacityFor(int entries, float loadFactor)
+    {
+        long needed = (long) Math.ceil(Math.max(entries, 1) / (double) loadFactor);
+        int capacity = GROUP_SIZE;
+        while ( capacity < needed && capacity < MAX_CAPACITY )
+        {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity)
+    {
+        control = new byte[capacity];
+        Arrays.fill(control, EMPTY);
+        keys = new long[capacity];
+        values = new int[capacity];
+        groupMask = (capacity >>> GROUP_SHIFT) - 1;
+        size = 0;
+        deleted = 0;
+        growThreshold = Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    // initialize the table by clearing all entries
+    public void initialize()
+    {
+        Arrays.fill(control, EMPTY);
+        size = 0;
+        deleted = 0;
+    }
+
+    // Return the number of entries stored
+    public int size()
+    {
+        return size;
+    }
+
+    // Return the number of slots currently allocated
+    public int capacity()
+    {
+        return control.length;
+    }
+
+    // Return the number of bytes used by the slot arrays (13 bytes per slot)
+    public long memoryUsage()
+    {
+        return (long) control.length * (Byte.BYTES + Long.BYTES + Integer.BYTES);
+    }
+
+    // Return true when control bytes are compared with the Vector API
+    public boolean usesVectorApi()
+    {
+        return matcher == GroupMatcher.VECTOR;
+    }
+
+    public void add(BridgeEntry newEntry) throws HashTableException
+    {
+        add(MacAddress.toLong(newEntry.macAddress), newEntry.interfaceValue);
+    }
+
+    // Insert the packed MAC address and interface value.
+    // Same semantics as HashTable.add: MAC addresses must be unique.
+    public void add(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        int hash = hasher.hash(mac);
+        if ( findSlot(mac, hash) >= 0 )
+        {
+            // UNSUPPORTED USE CASE
+            throw new UnsupportedFeatureHashTableException("Mac addresses must be unique." );
+        }
+        if ( size + deleted >= growThreshold )
+        {
+            rehash();
+        }
+        insertNew(mac, hash, interfaceValue);
+    }
+
+    // Insert the packed MAC address, or if it is already learned (station moved)
+    // set its interface value. Allocation free unless the table has to grow.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(long mac, int interfaceValue) throws HashTableException
+    {
+        MacAddress.checkKey(mac);
+        int hash = hasher.hash(mac);
+        int slot = findSlot(mac, hash);
+        if ( slot >= 0 )
+        {
+            int previousValue = values[slot];
+            values[slot] = interfaceValue;
+            return previousValue;
+        }
+        if ( size + deleted >= growThreshold )
+        {
+            rehash();
+        }
+        insertNew(mac, hash, interfaceValue);
+        return BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Store a key known not to be in the table in the first EMPTY or DELETED slot
+    // of its probe sequence
+    private void insertNew(long mac, int hash, int interfaceValue)
+    {
+        int group = (hash >>> H2_BITS) & groupMask;
+        int available;
+        for ( int step = 1; (available = matcher.matchAvailable(control, group << GROUP_SHIFT)) == 0; step++ )
+        {
+            group = (group + step) & groupMask;
+        }
+
+        int slot = (group << GROUP_SHIFT) + Integer.numberOfTrailingZeros(available);
+        if ( control[slot] == DELETED )
+        {
+            deleted--;
+        }
+        control[slot] = (byte) (hash & H2_MASK);
+        keys[slot] = mac;
+        values[slot] = interfaceValue;
+        size++;
+    }
+
+    // Return the slot holding the packed MAC address or -1 if not found
+    private int findSlot(long mac, int hash)
+    {
+        byte h2 = (byte) (hash & H2_MASK);
+        int group = (hash >>> H2_BITS) & groupMask;
+        for ( int step = 1; ; step++ )
+        {
+            int offset = group << GROUP_SHIFT;
+            for ( int matches = matcher.matchHash(control, offset, h2); matches != 0; matches &= matches - 1 )
+            {
+                int slot = offset + Integer.numberOfTrailingZeros(matches);
+                if ( keys[slot] == mac )
+                {
+                    return slot;
+                }
+            }
+            // No probe for this key went past a group that has an EMPTY slot
+            if ( matcher.matchEmpty(control, offset) != 0 )
+            {
+                return -1;
+            }
+            // Triangular steps visit every group of a power of two table
+            group = (group + step) & groupMask;
+        }
+    }
+
+    // Remove the entry for the packed MAC address.
+    // Return the removed BridgeEntry or null if the MAC address is not in the table.
+    public BridgeEntry remove(long mac)
+    {
+        int slot = findSlot(mac, hasher.hash(mac));
+        if ( slot < 0 )
+        {
+            return null;
+        }
+
+        BridgeEntry result = new BridgeEntry();
+        MacAddress.toBytes(mac, result.macAddress);
+        result.interfaceValue = values[slot];
+
+        // A group that still has an EMPTY slot never had a probe pass through it,
+        // so the slot can be EMPTY again; otherwise probes must continue past it.
+        if ( matcher.matchEmpty(control, slot & ~(GROUP_SIZE - 1)) != 0 )
+        {
+            control[slot] = EMPTY;
+        }
+        else
+        {
+            control[slot] = DELETED;
+            deleted++;
+        }
+        size--;
+
+        return result;
+    }
+
+    // Return the BridgeEntry at the specified macAddress, or null.
+    // (A new BridgeEntry is built for the result; use findInterface on the hot path.)
+    public BridgeEntry find(byte[] macAddress)
+    {
+        BridgeEntry result = null;
+
+        long mac = MacAddress.toLong(macAddress);
+        int slot = findSlot(mac, hasher.hash(mac));
+        if ( slot >= 0 )
+        {
+            result = new BridgeEntry();
+            MacAddress.toBytes(mac, result.macAddress);
+            result.interfaceValue = values[slot];
+        }
+
+        return result;
+    }
+
+    // Return the interfaceValue for the specified macAddress
+    public int findInterface(byte[] macAddress)
+    {
+        return findInterface(MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(long mac)
+    {
+        int slot = findSlot(mac, hasher.hash(mac));
+        return slot >= 0 ? values[slot] : BridgeEntry.INVALID_INTERFACE_VALUE;
+    }
+
+    // Look up a burst of packed MAC addresses: outIfaces[i] is set to the interface
+    // value of macs[i] or INVALID_INTERFACE_VALUE, for i < count.
+    public void findInterfaces(long[] macs, int[] outIfaces, int count)
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            outIfaces[i] = findInterface(macs[i]);
+        }
+    }
+
+    // Pass every entry to the consumer
+    public void forEach(LongIntConsumer consumer)
+    {
+        for ( int slot = 0; slot < control.length; slot++ )
+        {
+            if ( control[slot] >= 0 )
+            {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Re-insert all entries into a new slot array: twice as large when the
+    // entries fill more than half of the threshold, the same size when most of
+    // the used slots are DELETED.
+    private void rehash() throws HashTableException
+    {
+        int capacity = control.length;
+        if ( size >= growThreshold / 2 )
+        {
+            if ( capacity >= MAX_CAPACITY )
+            {
+                throw new FullHashTableException();
+            }
+            capacity <<= 1;
+        }
+
+        byte[] oldControl = control;
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for ( int slot = 0; slot < oldControl.length; slot++ )
+        {
+            if ( oldControl[slot] >= 0 )
+            {
+                insertNew(oldKeys[slot], hasher.hash(oldKeys[slot]), oldValues[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.onqware;
+
+// MAC table keyed on (VLAN / filtering database id, MAC address) for all VLANs
+// in one shared PrimitiveHashTable instead of one table per VLAN.
+// The 12-bit VLAN id is folded into bits 59-48 of the packed key above the
+// 48-bit MAC address, so memory grows with the learned entries; the only per
+// VLAN state is an entry count.
+public class VlanHashTable {
+
+    // Number of VLAN ids (12 bits)
+    public static final int VLAN_COUNT = 4096;
+    static final int VLAN_SHIFT = 48;
+    // Bits used by a packed key (VLAN id and MAC address)
+    private static final long KEY_MASK = ((long) VLAN_COUNT << VLAN_SHIFT) - 1;
+
+    private final PrimitiveHashTable table;
+    private final int[] vlanCounts = new int[VLAN_COUNT];
+
+    public VlanHashTable()
+    {
+        this(PrimitiveHashTable.MIN_CAPACITY);
+    }
+
+    // Create a table able to hold expectedEntries (all VLANs) without growing.
+    public VlanHashTable(int expectedEntries)
+    {
+        table = new PrimitiveHashTable(expectedEntries, PrimitiveHashTable.DEFAULT_HASHER, PrimitiveHashTable.LOAD_FACTOR, KEY_MASK);
+    }
+
+    // Return the packed key of the MAC address in the VLAN
+    public static long keyOf(int vlan, long mac) throws HashTableException
+    {
+        if ( vlan < 0 || vlan >= VLAN_COUNT )
+        {
+            throw new IndexOutOfBoundHashTableException();
+        }
+        return ((long) vlan << VLAN_SHIFT) | (mac & MacAddress.MASK);
+    }
+
+    // Return the VLAN id of a packed key
+    public static int vlanOf(long key)
+    {
+        return (int) (key >>> VLAN_SHIFT);
+    }
+
+    // Return the number of entries in all VLANs
+    public int size()
+    {
+        return table.size();
+    }
+
+    // Return the number of entries learned in the VLAN
+    public int countByVlan(int vlan) throws HashTableException
+    {
+        keyOf(vlan, 0);
+        return vlanCounts[vlan];
+    }
+
+    public void add(int vlan, BridgeEntry newEntry) throws HashTableException
+    {
+        add(vlan, MacAddress.toLong(newEntry.macAddress), newEntry.interfaceValue);
+    }
+
+    // Insert the packed MAC address in the VLAN. MAC addresses must be unique per VLAN.
+    public void add(int vlan, long mac, int interfaceValue) throws HashTableException
+    {
+        table.add(keyOf(vlan, mac), interfaceValue);
+        vlanCounts[vlan]++;
+    }
+
+    // Insert the packed MAC address in the VLAN, or if it is already learned
+    // there set its interface value.
+    // Return the previous interface value or INVALID_INTERFACE_VALUE if the entry is new.
+    public int put(int vlan, long mac, int interfaceValue) throws HashTableException
+    {
+        int sizeBefore = table.size();
+        int previousValue = table.put(keyOf(vlan, mac), interfaceValue);
+        if ( table.size() != sizeBefore )
+        {
+            vlanCounts[vlan]++;
+        }
+        return previousValue;
+    }
+
+    // Return the interfaceValue for the specified macAddress in the VLAN
+    public int findInterface(int vlan, byte[] macAddress) throws HashTableException
+    {
+        return findInterface(vlan, MacAddress.toLong(macAddress));
+    }
+
+    // Return the interfaceValue for the packed MAC address in the VLAN
+    // or INVALID_INTERFACE_VALUE when not found.
+    public int findInterface(int vlan, long mac) throws HashTableException
+    {
+        return table.findInterface(keyOf(vlan, mac));
+    }
+
+    // Remove the packed MAC address from the VLAN. Return its interface value or
+    // INVALID_INTERFACE_VALUE if it was not learned there.
+    public int remove(int vlan, long mac) throws HashTableException
+    {
+        int sizeBefore = table.size();
+        int removedValue = table.removeInterface(keyOf(vlan, mac));
+        if ( table.size() != sizeBefore )
+        {
+            vlanCounts[vlan]--;
+        }
+        return removedValue;
+    }
+
+    // Remove every entry of the VLAN. Return the number of entries removed.
+    // One pass over the shared slots; VLANs without entries return at once.
+    public int flushVlan(int vlan) throws HashTableException
+    {
+        keyOf(vlan, 0);
+        if ( vlanCounts[vlan] == 0 )
+        {
+            return 0;
+        }
+
+        int removed = table.removeAll(key -> vlanOf(key) == vlan);
+        vlanCounts[vlan] = 0;
+        return removed;
+    }
+
+    // Pass every entry to the consumer as (packed key, interface value);
+    // see vlanOf and MacAddress.MASK to split the key.
+    public void forEach(LongIntConsumer consumer)
+    {
+        table.forEach(consumer);
+    }
+}
@@ -0,0 +1,131 @@
+package loadtest;
+
+import java.util.Arrays;
+
+// Log-linear histogram of latencies in nanoseconds, in the style of HdrHistogram:
+// values below SUB_BUCKETS are counted exactly; larger values are grouped by
+// power of two magnitude and each magnitude is split into SUB_BUCKETS / 2 linear
+// sub-buckets, so every value is kept within 1/64 (< 2%) relative error in a
+// fixed array of counts.
+// Single writer: give each worker its own histogram and merge them with add().
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+    // Magnitudes above the exact range: values up to Long.MAX_VALUE
+    static final int MAGNITUDES = Long.SIZE - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS + MAGNITUDES * HALF_SUB_BUCKETS];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    // Return the index of the count for value
+    static int indexOf(long value)
+    {
+        if ( value < SUB_BUCKETS )
+        {
+            return (int) value;
+        }
+        int magnitude = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> magnitude) - HALF_SUB_BUCKETS;
+        return SUB_BUCKETS + (magnitude - 1) * HALF_SUB_BUCKETS + subBucket;
+    }
+
+    // Return the largest value counted at index
+    static long highestValueAt(int index)
+    {
+        if ( index < SUB_BUCKETS )
+        {
+            return index;
+        }
+        int magnitude = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+
+    public void recordValue(long value)
+    {
+        value = Math.max(value, 0);
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    // Record value and correct for coordinated omission: when a request took
+    // longer than the expected interval between requests, the requests that a
+    // closed loop sender could not issue meanwhile are recorded as well, with
+    // the latencies they would have seen (value - interval, value - 2 * interval, ...).
+    // Not needed when latency is measured from the intended start time.
+    public void recordValueWithExpectedInterval(long value, long expectedInterval)
+    {
+        recordValue(value);
+        if ( expectedInterval <= 0 )
+        {
+            return;
+        }
+        for ( long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval )
+        {
+            recordValue(missing);
+        }
+    }
+
+    // Add the counts of other to this histogram
+    public void add(LatencyHistogram other)
+    {
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public void reset()
+    {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long totalCount()
+    {
+        return totalCount;
+    }
+
+    public long max()
+    {
+        return max;
+    }
+
+    public double mean()
+    {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    // Return the value at or below which percentile (0-100) of the values fall
+    // (highest value of its sub-bucket, never more than max)
+    public long valueAtPercentile(double percentile)
+    {
+        if ( totalCount == 0 )
+        {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            seen += counts[i];
+            if ( seen >= rank )
+            {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,114 @@
+package loadtest;
+
+import com.onqware.BridgeEntry;
+import com.onqware.Concurrency;
+import com.onqware.EvictionPolicy;
+import com.onqware.HashTable;
+import com.onqware.HashTableException;
+import com.onqware.MacAddress;
+import com.onqware.MacTable;
+import com.onqware.MacTableOptions;
+import com.onqware.MacTables;
+import com.onqware.MemoryMode;
+import com.onqware.SnapshotPublisher;
+
+import java.util.concurrent.TimeUnit;
+
+// A table driven by LoadTest from many threads at once. Tables that are not
+// thread safe are wrapped with a lock, which is part of what is measured.
+public interface LoadTarget extends AutoCloseable {
+
+    // Target names accepted by create
+    String[] NAMES = { "HashTable", "PrimitiveHashTable", "OffHeapHashTable", "SwissHashTable", "ConcurrentHashTable", "SnapshotPublisher" };
+
+    int findInterface(long mac) throws HashTableException;
+
+    // Learn the MAC address, or move it to interfaceValue if already learned
+    void put(long mac, int interfaceValue) throws HashTableException;
+
+    @Override
+    default void close()
+    {
+    }
+
+    // Create the named target sized for expectedEntries. maxEntries > 0 caps the
+    // entries of HashTable based targets (CLOCK eviction).
+    static LoadTarget create(String name, int expectedEntries, int maxEntries)
+    {
+        MacTableOptions options = new MacTableOptions();
+        options.expectedEntries = expectedEntries;
+        options.concurrency = Concurrency.LOCKED;
+        switch ( name )
+        {
+            case "HashTable":
+                options.maxEntries = maxEntries;
+                options.evictionPolicy = EvictionPolicy.CLOCK;
+                break;
+            case "PrimitiveHashTable":
+                options.memoryMode = MemoryMode.PRIMITIVE;
+                break;
+            case "OffHeapHashTable":
+                options.memoryMode = MemoryMode.OFF_HEAP;
+                break;
+            case "SwissHashTable":
+                options.memoryMode = MemoryMode.SWISS;
+                break;
+            case "ConcurrentHashTable":
+                options.concurrency = Concurrency.STRIPED;
+                break;
+            case "SnapshotPublisher":
+                return snapshotPublisher(expectedEntries, maxEntries);
+            default:
+                throw new IllegalArgumentException("Unknown target " + name);
+        }
+
+        MacTable table = MacTables.create(options);
+        return new LoadTarget() {
+            public int findInterface(long mac) throws HashTableException
+            {
+                return table.findInterface(mac);
+            }
+
+            public void put(long mac, int interfaceValue) throws HashTableException
+            {
+                table.put(mac, interfaceValue);
+            }
+
+            public void close()
+            {
+                table.close();
+            }
+        };
+    }
+
+    private static LoadTarget snapshotPublisher(int expectedEntries, int maxEntries)
+    {
+        HashTable table = new HashTable(expectedEntries);
+        if ( maxEntries > 0 )
+        {
+            table.setMaxEntries(maxEntries);
+            table.setEvictionPolicy(EvictionPolicy.CLOCK);
+        }
+
+        SnapshotPublisher publisher = new SnapshotPublisher(table, 10, TimeUnit.MILLISECONDS, 4096);
+        return new LoadTarget() {
+            public int findInterface(long mac)
+            {
+                return publisher.findInterface(mac);
+            }
+
+            public void put(long mac, int interfaceValue) throws HashTableException
+            {
+                BridgeEntry entry = new BridgeEntry();
+                MacAddress.toBytes(mac, entry.macAddress);
+                entry.interfaceValue = interfaceValue;
+                publisher.put(entry);
+            }
+
+            public void close()
+            {
+                publisher.close();
+            }
+        };
+    }
+}
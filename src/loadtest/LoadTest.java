@@ -0,0 +1,338 @@
+package loadtest;
+
+import com.onqware.HashTableException;
+import com.onqware.MacAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Load test driver: replays a traffic mix against a table from many threads and
+// reports latency percentiles and throughput over time as JSON.
+//   java -cp <classpath> loadtest.LoadTest --target HashTable --mix FORWARD
+//        --threads 64 --rate 2000000 --duration 30 --entries 1000000
+//        --output result.json --max-p999-lookup-ns 50000
+// With --rate each thread sends at rate / threads operations per second and
+// latency is measured from the time an operation was due, so stalls count
+// against every operation queued behind them (coordinated omission corrected).
+// Without --rate threads send back to back; --expected-interval-ns then
+// corrects the closed loop latencies (see LatencyHistogram).
+// Runs on virtual threads when the JVM has them (Java 21+) and --virtual is
+// given, otherwise on one platform thread per worker.
+// Exit status 1 when the p99.9 lookup latency exceeds --max-p999-lookup-ns.
+public class LoadTest {
+
+    // Options, set from the command line
+    public String target = "HashTable";
+    public TrafficMix mix = TrafficMix.FORWARD;
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public boolean virtual = false;
+    public long rate = 0;
+    public long expectedIntervalNs = 0;
+    public int durationSeconds = 10;
+    public int warmupSeconds = 2;
+    public int entries = 1000000;
+    public int maxEntries = 0;
+    public int interfaces = 48;
+    public long seed = 42;
+    public long maxP999LookupNs = 0;
+    public Path output;
+
+    // Results, per worker then merged
+    final LatencyHistogram lookups = new LatencyHistogram();
+    final LatencyHistogram updates = new LatencyHistogram();
+    final LongAdder operations = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final List<long[]> intervals = new ArrayList<>();
+    long measuredNanos;
+
+    private long[] learned;
+
+    public static void main(String[] args) throws Exception
+    {
+        LoadTest test = parse(args);
+        boolean passed = test.run();
+        String json = test.toJson(passed);
+        if ( test.output != null )
+        {
+            Files.write(test.output, json.getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.println(json);
+        System.exit(passed ? 0 : 1);
+    }
+
+    static LoadTest parse(String[] args)
+    {
+        LoadTest test = new LoadTest();
+        for ( int i = 0; i < args.length; i++ )
+        {
+            String option = args[i];
+            if ( "--virtual".equals(option) )
+            {
+                test.virtual = true;
+                continue;
+            }
+            if ( i + 1 >= args.length )
+            {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch ( option )
+            {
+                case "--target": test.target = value; break;
+                case "--mix": test.mix = TrafficMix.valueOf(value.toUpperCase(Locale.ROOT)); break;
+                case "--threads": test.threads = Integer.parseInt(value); break;
+                case "--rate": test.rate = Long.parseLong(value); break;
+                case "--expected-interval-ns": test.expectedIntervalNs = Long.parseLong(value); break;
+                case "--duration": test.durationSeconds = Integer.parseInt(value); break;
+                case "--warmup": test.warmupSeconds = Integer.parseInt(value); break;
+                case "--entries": test.entries = Integer.parseInt(value); break;
+                case "--max-entries": test.maxEntries = Integer.parseInt(value); break;
+                case "--interfaces": test.interfaces = Integer.parseInt(value); break;
+                case "--seed": test.seed = Long.parseLong(value); break;
+                case "--max-p999-lookup-ns": test.maxP999LookupNs = Long.parseLong(value); break;
+                case "--output": test.output = Path.of(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        return test;
+    }
+
+    // Preload the table, run the workers and merge their results.
+    // Return false if the lookup latency gate failed.
+    public boolean run() throws Exception
+    {
+        try ( LoadTarget table = LoadTarget.create(target, entries, maxEntries) )
+        {
+            SplittableRandom random = new SplittableRandom(seed);
+            learned = new long[entries];
+            for ( int i = 0; i < entries; i++ )
+            {
+                learned[i] = randomUnicastMac(random);
+                table.put(learned[i], random.nextInt(interfaces));
+            }
+
+            Worker[] workers = new Worker[threads];
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+            try ( ExecutorServiceCloser executor = new ExecutorServiceCloser(newExecutor()) )
+            {
+                for ( int i = 0; i < threads; i++ )
+                {
+                    workers[i] = new Worker(table, random.split(), start, measureFrom, end);
+                    executor.service.execute(workers[i]);
+                }
+                reportIntervals(measureFrom, end);
+            }
+
+            measuredNanos = end - measureFrom;
+            for ( Worker worker : workers )
+            {
+                lookups.add(worker.lookups);
+                updates.add(worker.updates);
+            }
+        }
+
+        return maxP999LookupNs <= 0 || lookups.valueAtPercentile(99.9) <= maxP999LookupNs;
+    }
+
+    private static long randomUnicastMac(SplittableRandom random)
+    {
+        // Clear the group bit: unicast station addresses only
+        return random.nextLong() & MacAddress.MASK & ~(1L << 40);
+    }
+
+    private ExecutorService newExecutor()
+    {
+        if ( virtual )
+        {
+            try
+            {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                System.err.println("Virtual threads not available, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    // Sample the operation count every second of the measured period
+    private void reportIntervals(long measureFrom, long end)
+    {
+        sleepUntil(measureFrom);
+        long previous = operations.sum();
+        for ( int second = 1; System.nanoTime() < end; second++ )
+        {
+            sleepUntil(Math.min(end, measureFrom + TimeUnit.SECONDS.toNanos(second)));
+            long current = operations.sum();
+            intervals.add(new long[] { second, current - previous, errors.sum() });
+            previous = current;
+        }
+    }
+
+    private static void sleepUntil(long deadline)
+    {
+        long now;
+        while ( (now = System.nanoTime()) < deadline )
+        {
+            LockSupport.parkNanos(deadline - now);
+        }
+    }
+
+    // One sending thread with its own random source and histograms
+    final class Worker implements Runnable {
+        final LoadTarget table;
+        final SplittableRandom random;
+        final long start;
+        final long measureFrom;
+        final long end;
+        final LatencyHistogram lookups = new LatencyHistogram();
+        final LatencyHistogram updates = new LatencyHistogram();
+
+        Worker(LoadTarget table, SplittableRandom random, long start, long measureFrom, long end)
+        {
+            this.table = table;
+            this.random = random;
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run()
+        {
+            long interval = rate > 0 ? Math.max(1, TimeUnit.SECONDS.toNanos(threads) / rate) : 0;
+            long due = start;
+            long now = start;
+            while ( now < end )
+            {
+                if ( interval > 0 )
+                {
+                    due += interval;
+                    sleepUntil(due);
+                }
+                else
+                {
+                    due = System.nanoTime();
+                }
+
+                int choice = random.nextInt(100);
+                boolean lookup = choice < mix.lookupPercent;
+                try
+                {
+                    if ( lookup )
+                    {
+                        table.findInterface(learned[random.nextInt(learned.length)]);
+                    }
+                    else if ( choice < mix.lookupPercent + mix.learnPercent )
+                    {
+                        table.put(randomUnicastMac(random), random.nextInt(interfaces));
+                    }
+                    else
+                    {
+                        table.put(learned[random.nextInt(learned.length)], random.nextInt(interfaces));
+                    }
+                }
+                catch ( HashTableException e )
+                {
+                    errors.increment();
+                }
+                now = System.nanoTime();
+
+                if ( due >= measureFrom && due < end )
+                {
+                    LatencyHistogram histogram = lookup ? lookups : updates;
+                    if ( interval > 0 )
+                    {
+                        histogram.recordValue(now - due);
+                    }
+                    else
+                    {
+                        histogram.recordValueWithExpectedInterval(now - due, expectedIntervalNs);
+                    }
+                    operations.increment();
+                }
+            }
+        }
+    }
+
+    // Shuts the executor down and waits for the workers on close. If interrupted
+    // while waiting, stops the workers and restores the interrupt flag.
+    private static final class ExecutorServiceCloser implements AutoCloseable {
+        final ExecutorService service;
+
+        ExecutorServiceCloser(ExecutorService service)
+        {
+            this.service = service;
+        }
+
+        @Override
+        public void close()
+        {
+            service.shutdown();
+            try
+            {
+                service.awaitTermination(1, TimeUnit.DAYS);
+            }
+            catch ( InterruptedException e )
+            {
+                service.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    String toJson(boolean passed)
+    {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"target\": \"").append(target).append("\",\n");
+        json.append("  \"mix\": \"").append(mix).append("\",\n");
+        json.append("  \"threads\": ").append(threads).append(",\n");
+        json.append("  \"virtualThreads\": ").append(virtual).append(",\n");
+        json.append("  \"rate\": ").append(rate).append(",\n");
+        json.append("  \"entries\": ").append(entries).append(",\n");
+        json.append("  \"durationSeconds\": ").append(durationSeconds).append(",\n");
+        json.append("  \"operations\": ").append(operations.sum()).append(",\n");
+        json.append("  \"errors\": ").append(errors.sum()).append(",\n");
+        json.append("  \"throughput\": ").append(String.format(Locale.ROOT, "%.1f", operations.sum() * 1e9 / Math.max(1, measuredNanos))).append(",\n");
+        json.append("  \"intervals\": [");
+        for ( int i = 0; i < intervals.size(); i++ )
+        {
+            long[] interval = intervals.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    { \"second\": ").append(interval[0])
+                .append(", \"operations\": ").append(interval[1])
+                .append(", \"errors\": ").append(interval[2]).append(" }");
+        }
+        json.append("\n  ],\n");
+        json.append("  \"lookupLatencyNs\": ").append(latencyJson(lookups)).append(",\n");
+        json.append("  \"updateLatencyNs\": ").append(latencyJson(updates)).append(",\n");
+        json.append("  \"maxP999LookupNs\": ").append(maxP999LookupNs).append(",\n");
+        json.append("  \"passed\": ").append(passed).append("\n");
+        json.append("}");
+        return json.toString();
+    }
+
+    private static String latencyJson(LatencyHistogram histogram)
+    {
+        return String.format(Locale.ROOT,
+            "{ \"count\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"p999\": %d, \"p9999\": %d, \"max\": %d }",
+            histogram.totalCount(), histogram.mean(),
+            histogram.valueAtPercentile(50), histogram.valueAtPercentile(90),
+            histogram.valueAtPercentile(99), histogram.valueAtPercentile(99.9),
+            histogram.valueAtPercentile(99.99), histogram.max());
+    }
+}
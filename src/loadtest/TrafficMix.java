@@ -0,0 +1,25 @@
+package loadtest;
+
+// Operation mixes replayed by LoadTest, in percent of operations
+// - lookup: findInterface of a learned MAC address
+// - learn: a MAC address never seen before (table grows)
+// - move: a learned MAC address re-learned on another interface
+public enum TrafficMix {
+    // Steady forwarding with some learning
+    FORWARD(95, 5, 0),
+    // Stations moving between interfaces (VM migration, wireless roaming)
+    MOVES(80, 5, 15),
+    // MAC flooding: half of the frames carry a new random source address
+    FLOOD(50, 50, 0);
+
+    public final int lookupPercent;
+    public final int learnPercent;
+    public final int movePercent;
+
+    TrafficMix(int lookupPercent, int learnPercent, int movePercent)
+    {
+        this.lookupPercent = lookupPercent;
+        this.learnPercent = learnPercent;
+        this.movePercent = movePercent;
+    }
+}
@@ -0,0 +1,234 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChangeLogTest {
+
+    HashTable table;
+    ChangeLog log;
+    ChangeBatch batch;
+    long now;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new HashTable();
+        log = new ChangeLog(64);
+        batch = new ChangeBatch(16);
+        table.setChangeLog(log);
+        table.setClock(() -> now);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+        log = null;
+    }
+
+    private void assertEvent(int index, int type, long mac, int interfaceValue)
+    {
+        assertEquals(type, batch.types[index]);
+        assertEquals(mac, batch.macs[index]);
+        assertEquals(interfaceValue, batch.interfaceValues[index]);
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        table.add(0x0123456789abL, 1);
+        table.put(0x0123456789abL, 2);
+        table.put(0x0123456789abL, 2);   // not a change
+        table.add(0x0123456789acL, 3);
+        table.remove(0x0123456789acL);
+        table.remove(0x0123456789adL);   // not in the table
+
+        table.setMaxAge(10);
+        now = 20;
+        assertEquals(1, table.age(table.capacity()));
+        table.initialize();
+
+        assertEquals(6, log.sequence());
+        assertEquals(6, log.read(0, batch));
+        assertEquals(0, batch.sequence);
+        assertEvent(0, ChangeLog.ADD, 0x0123456789abL, 1);
+        assertEvent(1, ChangeLog.UPDATE, 0x0123456789abL, 2);
+        assertEvent(2, ChangeLog.ADD, 0x0123456789acL, 3);
+        assertEvent(3, ChangeLog.REMOVE, 0x0123456789acL, 3);
+        assertEvent(4, ChangeLog.REMOVE, 0x0123456789abL, 2);
+        assertEquals(ChangeLog.CLEAR, batch.types[5]);
+
+        assertEquals(2, log.read(4, batch));
+        assertEquals(4, batch.sequence);
+        assertEquals(0, log.read(6, batch));
+    }
+
+    @Test
+    public void testBatchLimit() throws Exception {
+        for ( int i = 0; i < 40; i++ )
+        {
+            table.add(i, i);
+        }
+        assertEquals(16, log.read(0, batch));
+        assertEquals(16, log.read(16, batch));
+        assertEquals(8, log.read(32, batch));
+        assertEvent(7, ChangeLog.ADD, 39, 39);
+    }
+
+    @Test
+    public void testOverrunAndResync() throws Exception {
+        HashTable replica = new HashTable();
+        ChangeLogReplica replicator = new ChangeLogReplica(log, replica, 16);
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.add(i, i);
+        }
+        assertEquals(ChangeLog.OVERRUN, replicator.poll());
+
+        ForwardingSnapshot snapshot = table.snapshot();
+        assertEquals(100, snapshot.sequence());
+        replicator.resync(snapshot);
+        assertEquals(100, replica.size());
+
+        table.put(5, 50);
+        table.remove(6);
+        assertEquals(2, replicator.poll());
+        assertEquals(50, replica.findInterface(5));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, replica.findInterface(6));
+        assertEquals(99, replica.size());
+    }
+
+    @Test
+    // A reader exactly capacity events behind shares its slot with the event being
+    // written next, so it is overrun even while the writer laps it; a reader one
+    // event closer gets either OVERRUN or exactly the events it asked for.
+    public void testOverrunAtCapacity() throws Exception {
+        // Event 2k adds MAC address k, event 2k + 1 removes it
+        for ( int i = 0; i < log.capacity() / 2; i++ )
+        {
+            table.add(i, i);
+            table.remove(i);
+        }
+        assertEquals(ChangeLog.OVERRUN, log.read(0, batch));
+        assertEquals(16, log.read(1, batch));
+        assertEvent(0, ChangeLog.REMOVE, 0, 0);
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            try
+            {
+                for ( long mac = log.capacity() / 2; !done.get(); mac++ )
+                {
+                    table.add(mac, (int) mac);
+                    table.remove(mac);
+                }
+            }
+            catch ( HashTableException e )
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+
+        int copied = 0;
+        for ( int i = 0; i < 200000; i++ )
+        {
+            long sequence = log.sequence() - log.capacity();
+            assertEquals(ChangeLog.OVERRUN, log.read(sequence, batch));
+
+            int count = log.read(sequence + 1, batch);
+            for ( int j = 0; j < count; j++ )
+            {
+                long event = sequence + 1 + j;
+                assertEquals(event / 2, batch.macs[j]);
+                assertEquals(event % 2 == 0 ? ChangeLog.ADD : ChangeLog.REMOVE, batch.types[j]);
+                copied++;
+            }
+        }
+        done.set(true);
+        writer.join();
+        System.out.println( String.format( "TEST: %d events copied while lapped.", copied ));
+    }
+
+    @Test
+    // A learner thread updates the source while a replica thread follows the log
+    // through a log small enough to overrun; the tables must end up equal.
+    public void testReplicaConverges() throws Exception {
+        HashTable source = new HashTable();
+        source.setChangeLog(log);
+        source.setMaxAge(5);
+        long[] clock = { 0 };
+        source.setClock(() -> clock[0]);
+
+        HashTable replica = new HashTable();
+        ChangeLogReplica replicator = new ChangeLogReplica(log, replica, 16);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int[] resyncs = { 0 };
+
+        Thread follower = new Thread(() -> {
+            try
+            {
+                while ( !done.get() || replicator.nextSequence() != log.sequence() )
+                {
+                    if ( replicator.poll() == ChangeLog.OVERRUN )
+                    {
+                        ForwardingSnapshot snapshot;
+                        synchronized ( source )
+                        {
+                            snapshot = source.snapshot();
+                        }
+                        replicator.resync(snapshot);
+                        resyncs[0]++;
+                    }
+                }
+            }
+            catch ( Throwable e )
+            {
+                failure.set(e);
+            }
+        });
+        follower.start();
+
+        Random random = new Random(17);
+        for ( int i = 0; i < 200000; i++ )
+        {
+            long mac = random.nextInt(4096);
+            synchronized ( source )
+            {
+                clock[0] = i / 100;
+                switch ( random.nextInt(4) )
+                {
+                    case 0:
+                        source.remove(mac);
+                        break;
+                    case 1:
+                        source.age(8);
+                        break;
+                    default:
+                        source.put(mac, random.nextInt(48));
+                }
+            }
+        }
+        done.set(true);
+        follower.join();
+
+        assertEquals(null, failure.get());
+        ForwardingSnapshot expected = source.snapshot();
+        ForwardingSnapshot actual = replica.snapshot();
+        assertEquals(expected.size(), actual.size());
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals(expected.macAt(i), actual.macAt(i));
+            assertEquals(expected.interfaceAt(i), actual.interfaceAt(i));
+        }
+        System.out.println( String.format( "TEST: replica converged after %d resyncs.", resyncs[0] ));
+    }
+}
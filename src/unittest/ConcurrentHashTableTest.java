@@ -0,0 +1,250 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConcurrentHashTableTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ENTRIES_PER_WRITER = 50000;
+
+    ConcurrentHashTable table;
+
+    // Interface value derived from the MAC address so readers can check the pairing
+    private static int interfaceFor(long mac)
+    {
+        return (int) (mac ^ (mac >>> 24)) & 0x7fffffff;
+    }
+
+    // MAC address i of writer w. Writers share NIC values (bucket collisions)
+    // and differ in the OUI bytes.
+    private static long macFor(int writer, int i)
+    {
+        return ((long) writer << 40) | ((long) (i & 0xff) << 24) | (i >> 8);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        table = new ConcurrentHashTable(1 << 12, 16);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    public void testAddAndFind() throws Exception {
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        BridgeEntry entry = new BridgeEntry();
+        entry.macAddress = macAddress;
+        entry.interfaceValue = 100;
+        table.add(entry);
+
+        assertEquals(true, Support.AreEqual(macAddress, table.find(macAddress).macAddress));
+        assertEquals(100, table.findInterface(macAddress));
+        assertEquals(Support.GetHash(macAddress), table.getHash(macAddress));
+        assertNull(table.find(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  )));
+    }
+
+    @Test
+    // one bucket filled in key order (clustered OUIs) stays searchable through
+    // moves and removes; find returns a copy the caller may change
+    public void testCollidingEntries() throws Exception {
+
+        int count = 5000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) i << 24) | 0x010101L, i);
+        }
+        for ( int i = 0; i < count; i += 2 )
+        {
+            assertEquals(i, table.put(((long) i << 24) | 0x010101L, i + 1));
+        }
+        for ( int i = 0; i < count; i += 3 )
+        {
+            assertEquals(i % 2 == 0 ? i + 1 : i, table.remove(((long) i << 24) | 0x010101L).interfaceValue);
+        }
+        assertEquals(count - (count + 2) / 3, table.size());
+        for ( int i = 0; i < count; i++ )
+        {
+            int expected = ( i % 3 == 0 ) ? BridgeEntry.INVALID_INTERFACE_VALUE : ( i % 2 == 0 ? i + 1 : i );
+            assertEquals(expected, table.findInterface(((long) i << 24) | 0x010101L));
+        }
+
+        table.find(0x000001010101L).interfaceValue = 99;
+        assertEquals(1, table.findInterface(0x000001010101L));
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    public void testUnsupportedUseCase() throws Exception {
+
+        table.add(0x000000010101L, 42);
+        table.add(0x000000010101L, 42);
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    // a key wider than 48 bits could never match the 6 byte form of the address
+    public void testWideKey() throws Exception {
+
+        table.put(1L << 48, 1);
+    }
+
+    @Test
+    // entries placed by another hasher are found, moved and removed the same way
+    public void testHasher() throws Exception {
+
+        table = new ConcurrentHashTable(1 << 8, 4, new MixingMacHasher(7));
+        for ( int i = 0; i < 1000; i++ )
+        {
+            table.add(((long) i << 24) | 0x010101L, i);
+        }
+        assertEquals(7, table.put(((long) 7 << 24) | 0x010101L, 8));
+        assertEquals(9, table.remove(((long) 9 << 24) | 0x010101L).interfaceValue);
+        assertEquals(999, table.size());
+        assertEquals(8, table.findInterface(((long) 7 << 24) | 0x010101L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(((long) 9 << 24) | 0x010101L));
+        assertEquals(500, table.findInterface(((long) 500 << 24) | 0x010101L));
+    }
+
+    @Test
+    // writers insert disjoint MAC addresses while readers look them up:
+    // no insert may be lost and a reader must never see a MAC address paired
+    // with the wrong interface value.
+    public void testConcurrentAddAndFind() throws Exception {
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for ( int w = 0; w < WRITERS; w++ )
+        {
+            final int writer = w;
+            writers.add(new Thread(() -> {
+                try
+                {
+                    start.await();
+                    for ( int i = 0; i < ENTRIES_PER_WRITER; i++ )
+                    {
+                        long mac = macFor(writer, i);
+                        table.add(mac, interfaceFor(mac));
+                    }
+                }
+                catch ( Exception e )
+                {
+                    failure.compareAndSet(null, "writer: " + e);
+                }
+            }));
+        }
+
+        for ( int r = 0; r < READERS; r++ )
+        {
+            readers.add(new Thread(() -> {
+                byte[] macAddress = new byte[BridgeEntry.NUM_FIELDS];
+                try
+                {
+                    start.await();
+                    while ( writing.get() )
+                    {
+                        long mac = macFor(ThreadLocalRandom.current().nextInt(WRITERS), ThreadLocalRandom.current().nextInt(ENTRIES_PER_WRITER));
+                        int interfaceValue = table.findInterface(mac);
+                        if ( interfaceValue != BridgeEntry.INVALID_INTERFACE_VALUE && interfaceValue != interfaceFor(mac) )
+                        {
+                            failure.compareAndSet(null, "torn interface for " + Long.toHexString(mac));
+                        }
+
+                        MacAddress.toBytes(mac, macAddress);
+                        BridgeEntry entry = table.find(macAddress);
+                        if ( entry != null && ( !Support.AreEqual(macAddress, entry.macAddress) || entry.interfaceValue != interfaceFor(mac) ) )
+                        {
+                            failure.compareAndSet(null, "torn entry for " + Long.toHexString(mac));
+                        }
+                    }
+                }
+                catch ( Exception e )
+                {
+                    failure.compareAndSet(null, "reader: " + e);
+                }
+            }));
+        }
+
+        for ( Thread t : readers ) t.start();
+        for ( Thread t : writers ) t.start();
+        start.countDown();
+        for ( Thread t : writers ) t.join();
+        writing.set(false);
+        for ( Thread t : readers ) t.join();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals(WRITERS * ENTRIES_PER_WRITER, table.size());
+        for ( int w = 0; w < WRITERS; w++ )
+        {
+            for ( int i = 0; i < ENTRIES_PER_WRITER; i++ )
+            {
+                long mac = macFor(w, i);
+                assertEquals(interfaceFor(mac), table.findInterface(mac));
+            }
+        }
+    }
+
+    @Test
+    // threads racing to add the same MAC addresses: exactly one add per address succeeds
+    public void testConcurrentDuplicateAdd() throws Exception {
+
+        final int threads = 4;
+        final int count = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger added = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+
+        for ( int t = 0; t < threads; t++ )
+        {
+            workers.add(new Thread(() -> {
+                try
+                {
+                    start.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    return;
+                }
+                for ( int i = 0; i < count; i++ )
+                {
+                    try
+                    {
+                        table.add(macFor(0, i), i);
+                        added.incrementAndGet();
+                    }
+                    catch ( HashTableException e )
+                    {
+                        // expected for all but one thread
+                    }
+                }
+            }));
+        }
+
+        for ( Thread t : workers ) t.start();
+        start.countDown();
+        for ( Thread t : workers ) t.join();
+
+        assertEquals(count, added.get());
+        assertEquals(count, table.size());
+    }
+}
@@ -0,0 +1,137 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class ForwardingSnapshotTest {
+
+    HashTable table;
+
+    // Helper method to build an entry using specified macAddress and interface value.
+    private static BridgeEntry entry(long mac, int interfaceValue)
+    {
+        BridgeEntry entry = new BridgeEntry();
+        MacAddress.toBytes(mac, entry.macAddress);
+        entry.interfaceValue = interfaceValue;
+        return entry;
+    }
+
+    // Wait until the publisher serves the expected interface value for mac
+    private static void awaitInterface(SnapshotPublisher publisher, long mac, int expectedValue) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ( publisher.findInterface(mac) != expectedValue && System.nanoTime() < deadline )
+        {
+            Thread.sleep(1);
+        }
+        assertEquals(expectedValue, publisher.findInterface(mac));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        table = new HashTable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    // the snapshot holds every entry sorted by MAC address
+    public void testSnapshot() throws Exception {
+
+        int count = 5000;
+        for ( int i = 0; i < count; i++ )
+        {
+            // several vendors sharing NIC values, learned out of order
+            table.add(entry(((long) (i % 7) << 24) | (i * 31 % count), i));
+        }
+
+        ForwardingSnapshot snapshot = table.snapshot();
+        assertEquals(count, snapshot.size());
+        for ( int i = 1; i < count; i++ )
+        {
+            assertEquals(true, snapshot.macAt(i - 1) < snapshot.macAt(i));
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals(i, snapshot.findInterface(((long) (i % 7) << 24) | (i * 31 % count)));
+        }
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, snapshot.findInterface(0x0000AA000000L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, new HashTable().snapshot().findInterface(0L));
+    }
+
+    @Test
+    // readers keep the published snapshot until enough changes trigger a new one
+    public void testPublishOnDeltaThreshold() throws Exception {
+
+        table.add(entry(0x000000010101L, 1));
+
+        try ( SnapshotPublisher publisher = new SnapshotPublisher(table, 1, TimeUnit.HOURS, 3) )
+        {
+            assertEquals(1, publisher.findInterface(0x000000010101L));
+
+            publisher.put(entry(0x000000010101L, 2));
+            publisher.add(entry(0x000000020202L, 3));
+            assertEquals(1, publisher.findInterface(0x000000010101L));
+            assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, publisher.findInterface(0x000000020202L));
+
+            publisher.remove(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1 ));
+            awaitInterface(publisher, 0x000000010101L, BridgeEntry.INVALID_INTERFACE_VALUE);
+            assertEquals(3, publisher.findInterface(0x000000020202L));
+        }
+    }
+
+    @Test
+    // changes below the threshold are published on the next period
+    public void testPublishOnPeriod() throws Exception {
+
+        try ( SnapshotPublisher publisher = new SnapshotPublisher(table, 10, TimeUnit.MILLISECONDS, 1000) )
+        {
+            publisher.add(entry(0x000000010101L, 7));
+            awaitInterface(publisher, 0x000000010101L, 7);
+        }
+    }
+
+    @Test
+    // changes made after close are applied to the table without scheduling a publish
+    public void testChangesAfterClose() throws Exception {
+
+        SnapshotPublisher publisher = new SnapshotPublisher(table, 1, TimeUnit.HOURS, 1);
+        publisher.close();
+
+        publisher.add(entry(0x000000010101L, 1));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, publisher.put(entry(0x000000020202L, 2)));
+        assertEquals(1, table.findInterface(0x000000010101L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, publisher.findInterface(0x000000010101L));
+
+        publisher.publish();
+        assertEquals(2, publisher.findInterface(0x000000020202L));
+    }
+
+    @Test
+    // range scan in ascending order, bounds inclusive
+    public void testForEachInRange() throws Exception {
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.add(entry(i * 10L, i));
+        }
+        ForwardingSnapshot snapshot = table.snapshot();
+
+        StringBuilder visited = new StringBuilder();
+        snapshot.forEachInRange(195, 230, (mac, interfaceValue) -> visited.append(mac).append('=').append(interfaceValue).append(' '));
+        assertEquals("200=20 210=21 220=22 230=23 ", visited.toString());
+
+        visited.setLength(0);
+        snapshot.forEachInRange(991, 2000, (mac, interfaceValue) -> visited.append(mac));
+        assertEquals("", visited.toString());
+    }
+}
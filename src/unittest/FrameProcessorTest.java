@@ -0,0 +1,87 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameProcessorTest {
+
+    private static final long STATION_A = 0x001B21000001L;
+    private static final long STATION_B = 0x001B21000002L;
+    private static final long BROADCAST = 0xFFFFFFFFFFFFL;
+
+    FrameProcessor processor;
+    ByteBuffer frames;
+
+    @Before
+    public void setUp() throws Exception {
+        processor = new FrameProcessor(new PrimitiveHashTable());
+        frames = ByteBuffer.allocate(4096);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        processor = null;
+        frames = null;
+    }
+
+    // Append a length prefixed frame with the given addresses and a 46 byte payload
+    private void addFrame(long destination, long source)
+    {
+        byte[] macAddress = new byte[BridgeEntry.NUM_FIELDS];
+        frames.putShort((short) 60);
+        MacAddress.toBytes(destination, macAddress);
+        frames.put(macAddress);
+        MacAddress.toBytes(source, macAddress);
+        frames.put(macAddress);
+        frames.putShort((short) 0x0800);
+        frames.put(new byte[46]);
+    }
+
+    @Test
+    // learn sources, forward known destinations, flood unknown and group destinations
+    public void testLearnAndForward() throws Exception {
+
+        addFrame(STATION_B, STATION_A);   // B unknown: flood, learn A on 1
+        addFrame(BROADCAST, STATION_A);   // group address: flood
+        frames.flip();
+        int[] egress = new int[8];
+        assertEquals(2, processor.process(frames, 1, egress));
+        assertEquals(FrameProcessor.FLOOD, egress[0]);
+        assertEquals(FrameProcessor.FLOOD, egress[1]);
+        assertEquals(0, frames.remaining());
+
+        frames.clear();
+        addFrame(STATION_A, STATION_B);   // A known on 1, learn B on 2
+        addFrame(STATION_B, STATION_A);   // A moved to interface 2, B is on 2: filtered
+        frames.flip();
+        int[] first = new int[1];
+        assertEquals(1, processor.process(frames, 2, first));
+        assertEquals(1, first[0]);
+        assertEquals(1, processor.process(frames, 2, egress));
+        assertEquals(FrameProcessor.DROP, egress[0]);
+
+        assertEquals(2, processor.getTable().findInterface(STATION_A));
+        assertEquals(2, processor.getTable().findInterface(STATION_B));
+        assertEquals(2, processor.getTable().size());
+    }
+
+    @Test
+    // an incomplete trailing frame is left in the buffer
+    public void testPartialFrame() throws Exception {
+
+        addFrame(STATION_B, STATION_A);
+        frames.putShort((short) 60);
+        frames.put(new byte[10]);
+        frames.flip();
+
+        int[] egress = new int[8];
+        assertEquals(1, processor.process(frames, 1, egress));
+        assertEquals(12, frames.remaining());
+    }
+}
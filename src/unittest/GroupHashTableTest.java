@@ -0,0 +1,125 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupHashTableTest {
+
+    static final long GROUP = 0x01005e000001L;
+
+    GroupHashTable table;
+    PortSet ports;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new GroupHashTable(256);
+        ports = new PortSet(256);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    public void testInlinePorts() throws Exception {
+        assertEquals(true, table.addPort(GROUP, 1));
+        assertEquals(true, table.addPort(GROUP, 63));
+        assertEquals(false, table.addPort(GROUP, 1));
+
+        assertEquals((1L << 1) | (1L << 63), table.findPortMask(GROUP));
+        assertEquals(2, table.portCount(GROUP));
+        assertEquals(true, table.findPorts(GROUP, ports));
+        assertEquals(1, ports.nextPort(0));
+        assertEquals(63, ports.nextPort(2));
+        assertEquals(-1, ports.nextPort(64));
+        assertEquals(0L, table.findPortMask(GROUP + 1));
+        assertEquals(false, table.findPorts(GROUP + 1, ports));
+        assertEquals(0, ports.count());
+    }
+
+    @Test
+    public void testPooledPorts() throws Exception {
+        table.addPort(GROUP, 5);
+        table.addPort(GROUP, 64);
+        table.addPort(GROUP, 255);
+        table.addPort(GROUP + 1, 200);
+
+        assertEquals(true, table.findPorts(GROUP, ports));
+        assertEquals(3, ports.count());
+        assertEquals(true, ports.contains(64));
+        assertEquals(true, ports.contains(255));
+        assertEquals(false, ports.contains(200));
+
+        assertEquals(true, table.findPorts(GROUP + 1, ports));
+        assertEquals(200, ports.nextPort(0));
+        assertEquals(1, ports.count());
+        assertEquals(0L, table.findPortMask(GROUP + 1));
+
+        // Removing the last port removes the group
+        assertEquals(true, table.removePort(GROUP + 1, 200));
+        assertEquals(false, table.removePort(GROUP + 1, 200));
+        assertEquals(1, table.size());
+        assertEquals(false, table.findPorts(GROUP + 1, ports));
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    public void testUnicastAddress() throws Exception {
+        table.addPort(0x001b21000001L, 1);
+    }
+
+    @Test(expected = IndexOutOfBoundHashTableException.class)
+    public void testPortOutOfRange() throws Exception {
+        table.addPort(GROUP, 256);
+    }
+
+    @Test
+    // Random port updates against BitSets; exercises growth, block reuse and deletion
+    public void testRandomOperations() throws Exception {
+        Random random = new Random(20);
+        Map<Long, BitSet> expected = new HashMap<>();
+
+        for ( int i = 0; i < 50000; i++ )
+        {
+            long mac = GroupHashTable.GROUP_BIT | random.nextInt(300);
+            int port = random.nextInt(4) == 0 ? random.nextInt(256) : random.nextInt(8);
+            BitSet set = expected.computeIfAbsent(mac, key -> new BitSet());
+            if ( random.nextBoolean() )
+            {
+                assertEquals(!set.get(port), table.addPort(mac, port));
+                set.set(port);
+            }
+            else
+            {
+                assertEquals(set.get(port), table.removePort(mac, port));
+                set.clear(port);
+            }
+            if ( set.isEmpty() )
+            {
+                expected.remove(mac);
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for ( Map.Entry<Long, BitSet> entry : expected.entrySet() )
+        {
+            assertEquals(true, table.findPorts(entry.getKey(), ports));
+            BitSet set = entry.getValue();
+            assertEquals(set.cardinality(), ports.count());
+            assertEquals(set.cardinality(), table.portCount(entry.getKey()));
+            for ( int port = ports.nextPort(0); port >= 0; port = ports.nextPort(port + 1) )
+            {
+                assertEquals(true, set.get(port));
+            }
+        }
+    }
+}
@@ -6,7 +6,12 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class HashTableTest {
 
@@ -135,6 +140,105 @@ public class HashTableTest {
         printMacAddressHash(macAddress, actualHash);
     }
 
+    @Test
+    // the bucket array starts small and grows as entries are added
+    public void testResize() throws Exception {
+
+        System.out.println( String.format( "TEST: resize ..." ));
+
+        table = new HashTable(100);
+        int initialCapacity = table.capacity();
+        int count = 20000;
+
+        for ( int i = 0; i < count; i++ )
+        {
+            byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) (i & 0x3),(byte) 0,(byte) (i >> 16), (byte) (i >> 8),(byte) i );
+            BridgeEntry entry = new BridgeEntry();
+            entry.macAddress = macAddress;
+            entry.interfaceValue = i;
+            table.add(entry);
+
+            // entries added before and during an incremental resize stay reachable
+            assertEquals( i / 2, table.findInterface( Support.GetMACAddress((byte) 0,(byte) ((i / 2) & 0x3),(byte) 0,(byte) (i / 2 >> 16), (byte) (i / 2 >> 8),(byte) (i / 2) )));
+        }
+
+        assertEquals( count, table.size() );
+        assertEquals( true, table.capacity() > initialCapacity );
+        for ( int i = 0; i < count; i++ )
+        {
+            byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) (i & 0x3),(byte) 0,(byte) (i >> 16), (byte) (i >> 8),(byte) i );
+            assertEquals( i, table.findInterface(macAddress) );
+        }
+    }
+
+    @Test
+    // a large bucket moved a few nodes per add: duplicates, moves and removes still
+    // find entries left in the old bucket tree
+    public void testResizeLargeBucket() throws Exception {
+
+        System.out.println( String.format( "TEST: resize large bucket ..." ));
+
+        table = new HashTable(16);
+        int count = 2000;
+
+        for ( int i = 0; i < count; i++ )
+        {
+            // Every other entry has NIC bytes 00:00:01 and lands in the same bucket
+            long mac = ( i % 2 == 0 ) ? ((long) (i + 1) << 24) | 1 : i;
+            table.add(mac, i);
+
+            int earlier = i / 2 * 2;
+            long earlierMac = ((long) (earlier + 1) << 24) | 1;
+            try
+            {
+                table.add(earlierMac, 0);
+                fail("duplicate added");
+            }
+            catch ( UnsupportedFeatureHashTableException e )
+            {
+                // expected
+            }
+            assertEquals( earlier, table.put(earlierMac, earlier) );
+            assertEquals( earlier, table.findInterface(earlierMac) );
+        }
+        assertEquals( count, table.size() );
+
+        for ( int i = 0; i < count; i += 2 )
+        {
+            assertEquals( i, table.remove(((long) (i + 1) << 24) | 1).interfaceValue );
+            table.add(count + i + 1L, i);
+        }
+        assertEquals( count, table.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            long mac = ( i % 2 == 0 ) ? ((long) (i + 1) << 24) | 1 : i;
+            assertEquals( i % 2 == 0 ? BridgeEntry.INVALID_INTERFACE_VALUE : i, table.findInterface(mac) );
+        }
+    }
+
+    @Test
+    // a seeded mixing hasher spreads clustered MAC addresses and keeps find working across resizes
+    public void testMixingHasher() throws Exception {
+
+        System.out.println( String.format( "TEST: mixing hasher ..." ));
+
+        table = new HashTable(16, new MixingMacHasher(0x1234));
+        HashTable otherSeed = new HashTable(16, new MixingMacHasher(0x5678));
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        assertEquals( true, table.getHash(macAddress) != otherSeed.getHash(macAddress) );
+        assertEquals( true, table.getHash(macAddress) < table.LENGTH );
+
+        // 256 vendors sharing one NIC value
+        for ( int i = 0; i < 256; i++ )
+        {
+            addEntry(Support.GetMACAddress((byte) 0,(byte) 0,(byte) i,(byte) 1, (byte) 1,(byte) 1  ), i);
+        }
+        for ( int i = 0; i < 256; i++ )
+        {
+            assertEquals( i, table.findInterface(Support.GetMACAddress((byte) 0,(byte) 0,(byte) i,(byte) 1, (byte) 1,(byte) 1  )) );
+        }
+    }
+
     @Test
     // add and find test (simple)
     public void testAddAndFind() throws Exception {
@@ -147,6 +251,24 @@ public class HashTableTest {
         find(macAddress);
     }
 
+    @Test
+    // add and find by packed 48-bit MAC address, interchangeable with the byte[] form
+    public void testAddAndFindPacked() throws Exception {
+
+        System.out.println( String.format( "TEST: add and find packed ..." ));
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0x01,(byte) 0x23,(byte) 0x45,(byte) 0x67, (byte) 0x89,(byte) 0xab );
+        table.add(0x0123456789abL, 100);
+        findInterface(macAddress, 100);
+        assertEquals( 100, table.findInterface(0x0123456789abL) );
+        assertEquals( true, Support.AreEqual(macAddress, table.find(0x0123456789abL).macAddress) );
+
+        assertEquals( 100, table.put(0x0123456789abL, 200) );
+        findInterface(macAddress, 200);
+        assertEquals( 200, table.remove(0x0123456789abL).interfaceValue );
+        assertEquals( null, table.find(0x0123456789abL) );
+    }
+
     @Test
     // add and find test where different mac addresses can hash to the same index.
     public void testAddHashCollision() throws Exception {
@@ -195,6 +317,691 @@ public class HashTableTest {
     }
 
 
+    @Test
+    // a station moving to another interface is updated in place
+    public void testPutMove() throws Exception {
+
+        System.out.println( String.format( "TEST: put (station move) ..." ));
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        addEntry(macAddress, 10);
+
+        BridgeEntry moved = new BridgeEntry();
+        moved.macAddress = macAddress;
+        moved.interfaceValue = 20;
+        assertEquals( 10, table.put(moved) );
+        findInterface(macAddress, 20);
+
+        BridgeEntry learned = new BridgeEntry();
+        learned.macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  );
+        learned.interfaceValue = 30;
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.put(learned) );
+        findInterface(learned.macAddress, 30);
+        assertEquals( 2, table.size() );
+    }
+
+    @Test
+    // remove entries from a bucket tree, including nodes with two children
+    public void testRemove() throws Exception {
+
+        System.out.println( String.format( "TEST: remove ..." ));
+
+        byte[][] macAddresses = new byte[32][];
+        for ( int i = 0; i < macAddresses.length; i++ )
+        {
+            // same NIC bytes so every entry lands in one bucket, inserted out of order
+            int oui = (i * 7) % macAddresses.length;
+            macAddresses[i] = Support.GetMACAddress((byte) 0,(byte) 0,(byte) oui,(byte) 1, (byte) 1,(byte) 1  );
+            addEntry(macAddresses[i], i);
+        }
+
+        for ( int i = 0; i < macAddresses.length; i += 2 )
+        {
+            assertEquals( i, table.remove(macAddresses[i]).interfaceValue );
+        }
+        assertEquals( null, table.remove(macAddresses[0]) );
+        assertEquals( macAddresses.length / 2, table.size() );
+
+        for ( int i = 0; i < macAddresses.length; i++ )
+        {
+            int expectedValue = ( i % 2 == 0 ) ? BridgeEntry.INVALID_INTERFACE_VALUE : i;
+            findInterface(macAddresses[i], expectedValue);
+        }
+    }
+
+    @Test
+    // entries not learned within the maximum age are removed by the aging sweep
+    public void testAging() throws Exception {
+
+        System.out.println( String.format( "TEST: aging ..." ));
+
+        final long[] now = { 1000 };
+        table.setClock(() -> now[0]);
+        table.setMaxAge(300);
+
+        byte[] staleMacAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] refreshedMacAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] newMacAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 2, (byte) 2,(byte) 2  );
+        addEntry(staleMacAddress, 1);
+        addEntry(refreshedMacAddress, 2);
+
+        now[0] = 1200;
+        BridgeEntry refreshed = new BridgeEntry();
+        refreshed.macAddress = refreshedMacAddress;
+        refreshed.interfaceValue = 2;
+        table.put(refreshed);
+        addEntry(newMacAddress, 3);
+
+        now[0] = 1400;
+        int removed = 0;
+        for ( int i = 0; i < table.capacity(); i++ )
+        {
+            // one bucket per call
+            removed += table.age(1);
+        }
+
+        assertEquals( 1, removed );
+        findInterface(staleMacAddress, BridgeEntry.INVALID_INTERFACE_VALUE);
+        findInterface(refreshedMacAddress, 2);
+        findInterface(newMacAddress, 3);
+    }
+
+    @Test
+    // every other entry of one large bucket goes stale: one pass over the bucket
+    // removes exactly those and leaves the tree searchable
+    public void testAgingLargeBucket() throws Exception {
+
+        System.out.println( String.format( "TEST: aging large bucket ..." ));
+
+        final long[] now = { 1000 };
+        table.setClock(() -> now[0]);
+        table.setMaxAge(300);
+
+        int count = 5000;
+        for ( int i = 0; i < count; i += 2 )
+        {
+            table.add(((long) i << 24) | 0x010101L, i);
+        }
+        now[0] = 1200;
+        for ( int i = 1; i < count; i += 2 )
+        {
+            table.add(((long) i << 24) | 0x010101L, i);
+        }
+
+        now[0] = 1400;
+        assertEquals( count / 2, table.age(table.capacity()) );
+        assertEquals( count / 2, table.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( i % 2 == 0 ? BridgeEntry.INVALID_INTERFACE_VALUE : i, table.findInterface(((long) i << 24) | 0x010101L) );
+        }
+    }
+
+    @Test
+    // look up a burst of MAC addresses at once, by packed value and by frame offset
+    public void testFindInterfaces() throws Exception {
+
+        System.out.println( String.format( "TEST: batch find ..." ));
+
+        int count = 64;
+        long[] macs = new long[count];
+        byte[] frames = new byte[count * 64];
+        int[] offsets = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // every third MAC address is not in the table, some share NIC bytes
+            macs[i] = ((long) (i % 4) << 24) | (i / 4);
+            offsets[i] = i * 64 + 2;
+            byte[] macAddress = new byte[BridgeEntry.NUM_FIELDS];
+            MacAddress.toBytes(macs[i], macAddress);
+            System.arraycopy(macAddress, 0, frames, offsets[i], macAddress.length);
+            if ( i % 3 != 0 )
+            {
+                addEntry(macAddress, i);
+            }
+        }
+
+        int[] outIfaces = new int[count];
+        table.findInterfaces(macs, outIfaces, count);
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( ( i % 3 != 0 ) ? i : BridgeEntry.INVALID_INTERFACE_VALUE, outIfaces[i] );
+        }
+
+        int[] frameIfaces = new int[count];
+        table.findInterfaces(frames, offsets, frameIfaces, count);
+        assertArrayEquals( outIfaces, frameIfaces );
+
+        frameIfaces = new int[count];
+        table.findInterfaces(ByteBuffer.wrap(frames), offsets, frameIfaces, count);
+        assertArrayEquals( outIfaces, frameIfaces );
+    }
+
+    @Test
+    // ordered inserts into one bucket (many OUIs sharing NIC bytes) keep the tree balanced
+    public void testBalancedBucket() throws Exception {
+
+        System.out.println( String.format( "TEST: balanced bucket ..." ));
+
+        HashTableMetrics metrics = new HashTableMetrics();
+        table.setMetrics(metrics);
+
+        int count = 4096;
+        for ( int i = 0; i < count; i++ )
+        {
+            BridgeEntry entry = new BridgeEntry();
+            entry.macAddress = Support.GetMACAddress((byte) 0,(byte) (i >> 8),(byte) i,(byte) 1, (byte) 1,(byte) 1  );
+            entry.interfaceValue = i;
+            table.add(entry);
+        }
+        // remove every other entry, then look all of them up
+        for ( int i = 0; i < count; i += 2 )
+        {
+            table.remove(Support.GetMACAddress((byte) 0,(byte) (i >> 8),(byte) i,(byte) 1, (byte) 1,(byte) 1  ));
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            int expectedValue = ( i % 2 == 0 ) ? BridgeEntry.INVALID_INTERFACE_VALUE : i;
+            assertEquals( expectedValue, table.findInterface(Support.GetMACAddress((byte) 0,(byte) (i >> 8),(byte) i,(byte) 1, (byte) 1,(byte) 1  )) );
+        }
+
+        // AVL height bound: 1.44 * log2(4096) < 18
+        HashTableMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals( true, snapshot.maxDepth <= 18 );
+        long deepLookups = 0;
+        for ( int depth = 19; depth < snapshot.depthHistogram.length; depth++ )
+        {
+            deepLookups += snapshot.depthHistogram[depth];
+        }
+        assertEquals( 0, deepLookups );
+    }
+
+    @Test
+    // hit, miss, insert and depth counters follow the table operations
+    public void testMetrics() throws Exception {
+
+        System.out.println( String.format( "TEST: metrics ..." ));
+
+        HashTableMetrics metrics = new HashTableMetrics();
+        table.setMetrics(metrics);
+
+        // ascending MAC addresses with the same NIC bytes: one bucket, rebalanced to height 3
+        byte[][] macAddresses = new byte[4][];
+        for ( int i = 0; i < macAddresses.length; i++ )
+        {
+            macAddresses[i] = Support.GetMACAddress((byte) 0,(byte) 0,(byte) i,(byte) 1, (byte) 1,(byte) 1  );
+            addEntry(macAddresses[i], i);
+        }
+        try
+        {
+            addEntry(macAddresses[0], 0);
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // duplicate counted
+        }
+
+        findInterface(macAddresses[3], 3);
+        findInterface(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 9,(byte) 1, (byte) 1,(byte) 1  ), BridgeEntry.INVALID_INTERFACE_VALUE);
+
+        HashTableMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals( 4, snapshot.inserts );
+        assertEquals( 1, snapshot.duplicates );
+        assertEquals( 1, snapshot.hits );
+        assertEquals( 1, snapshot.misses );
+        assertEquals( 3, snapshot.maxDepth );
+        assertEquals( 2, snapshot.depthHistogram[3] );
+    }
+
+    @Test
+    // keys wider than 48 bits are refused by the packed entry points and by bulkLoad
+    // (their 6 byte form would be another MAC address)
+    public void testWideKey() throws Exception {
+
+        System.out.println( String.format( "TEST: wide key ..." ));
+
+        table.add(0x000000010101L, 1);
+        try
+        {
+            table.add(0x1000000010101L, 2);
+            fail( "wide key added" );
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // expected
+        }
+        try
+        {
+            table.put(-1L, 2);
+            fail( "wide key added" );
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // expected
+        }
+        try
+        {
+            table.bulkLoad(new long[] { 0x000000020202L, 1L << 48 }, new int[] { 3, 4 }, 2);
+            fail( "wide key loaded" );
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // expected
+        }
+        assertEquals( 1, table.size() );
+        assertEquals( 1, table.findInterface(0x000000010101L) );
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(0x000000020202L) );
+    }
+
+    @Test
+    // bulkLoad sizes the table once, skips duplicates and keeps entries added before
+    public void testBulkLoad() throws Exception {
+
+        System.out.println( String.format( "TEST: bulk load ..." ));
+
+        HashTableMetrics metrics = new HashTableMetrics();
+        table = new HashTable();
+        table.setMetrics(metrics);
+        table.add(0x7f0000000005L, 99);
+
+        int count = 100000;
+        long[] macs = new long[count + 2];
+        int[] interfaceValues = new int[count + 2];
+        for ( int i = 0; i < count; i++ )
+        {
+            // Many vendors sharing NIC values so buckets hold several entries
+            macs[i] = ((long) (i % 64) << 40) | (i / 64);
+            interfaceValues[i] = i;
+        }
+        macs[count] = macs[10];             // repeated in the input
+        interfaceValues[count] = -5;
+        macs[count + 1] = 0x7f0000000005L;  // already in the table
+        interfaceValues[count + 1] = -6;
+
+        assertEquals( count, table.bulkLoad(macs, interfaceValues, count + 2) );
+        assertEquals( count + 1, table.size() );
+        assertEquals( true, table.capacity() * 0.75 >= table.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( i, table.findInterface(macs[i]) );
+        }
+        assertEquals( 99, table.findInterface(0x7f0000000005L) );
+        assertEquals( 2, metrics.snapshot().duplicates );
+
+        // The table keeps working incrementally after a bulk load
+        table.add(0x7f0000000006L, 1);
+        assertEquals( 0, table.remove(macs[0]).interfaceValue );
+        assertEquals( count + 1, table.size() );
+
+        // Stream of packed entries
+        table = new HashTable();
+        assertEquals( 2, table.bulkLoad(LongStream.of(MacAddress.pack(0x0123456789abL, 3), MacAddress.pack(0x0123456789acL, 0xFFFF))) );
+        assertEquals( 3, table.findInterface(0x0123456789abL) );
+        assertEquals( 0xFFFF, table.findInterface(0x0123456789acL) );
+    }
+
+    @Test
+    // REFUSE_NEW keeps the learned entries once the limit is reached
+    public void testEntryLimitRefuse() throws Exception {
+
+        System.out.println( String.format( "TEST: entry limit refuse new ..." ));
+
+        HashTableMetrics metrics = new HashTableMetrics();
+        table.setMetrics(metrics);
+        table.setMaxEntries(100);
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.add(i, 1);
+        }
+
+        try
+        {
+            table.put(100L, 1);
+            fail("put beyond the entry limit");
+        }
+        catch ( FullHashTableException e )
+        {
+            // expected
+        }
+        assertEquals( 1, table.put(5L, 2) );   // updates are still allowed
+        assertEquals( 100, table.size() );
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(100L) );
+        assertEquals( 1, metrics.snapshot().refusals );
+
+        table.remove(0L);
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.put(100L, 1) );
+    }
+
+    @Test(expected=FullHashTableException.class)
+    public void testEntryLimitAdd() throws Exception {
+        table.setMaxEntries(1);
+        table.add(1L, 1);
+        table.add(2L, 1);
+    }
+
+    @Test
+    // CLOCK evicts entries that were not looked up since the hand last passed them
+    public void testEntryLimitClock() throws Exception {
+
+        System.out.println( String.format( "TEST: entry limit clock ..." ));
+
+        HashTableMetrics metrics = new HashTableMetrics();
+        table.setMetrics(metrics);
+        table.setMaxEntries(100);
+        table.setEvictionPolicy(EvictionPolicy.CLOCK);
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.add(i, 1);
+        }
+        // Entries 0-9 are in use
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertEquals( 1, table.findInterface((long) i) );
+        }
+
+        // Flood of new MAC addresses
+        for ( int i = 1000; i < 1050; i++ )
+        {
+            assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.put(i, 1) );
+        }
+
+        assertEquals( 100, table.size() );
+        assertEquals( 100, table.countByInterface(1) );
+        assertEquals( 50, metrics.snapshot().evictions );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertEquals( 1, table.findInterface((long) i) );
+        }
+        for ( int i = 10; i < 60; i++ )
+        {
+            assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface((long) i) );
+        }
+    }
+
+    @Test
+    // A flooded interface evicts its own entries, not those of other interfaces
+    public void testInterfaceLimit() throws Exception {
+
+        System.out.println( String.format( "TEST: interface limit ..." ));
+
+        table.setMaxEntriesPerInterface(10);
+        table.setEvictionPolicy(EvictionPolicy.CLOCK);
+        for ( int i = 0; i < 10; i++ )
+        {
+            table.add(i, 2);
+        }
+        for ( int i = 100; i < 1000; i++ )
+        {
+            table.put(i, 3);
+        }
+
+        assertEquals( 10, table.countByInterface(2) );
+        assertEquals( 10, table.countByInterface(3) );
+        assertEquals( 20, table.size() );
+        assertEquals( 3, table.findInterface(999L) );
+
+        // A station moving onto the full interface evicts one of its entries
+        assertEquals( 2, table.put(0L, 3) );
+        assertEquals( 9, table.countByInterface(2) );
+        assertEquals( 10, table.countByInterface(3) );
+        assertEquals( 19, table.size() );
+
+        table.setEvictionPolicy(EvictionPolicy.REFUSE_NEW);
+        try
+        {
+            table.put(1L, 3);
+            fail("move onto a full interface");
+        }
+        catch ( FullHashTableException e )
+        {
+            // expected
+        }
+        assertEquals( 2, table.findInterface(1L) );
+    }
+
+    @Test
+    // bulk loaded entries over the limit are evicted one per insert, not all at once
+    public void testEntryLimitAfterBulkLoad() throws Exception {
+
+        System.out.println( String.format( "TEST: entry limit after bulk load ..." ));
+
+        table.setMaxEntries(10);
+        table.setEvictionPolicy(EvictionPolicy.CLOCK);
+        long[] macs = new long[100];
+        int[] interfaceValues = new int[100];
+        for ( int i = 0; i < 100; i++ )
+        {
+            macs[i] = i;
+            interfaceValues[i] = 1;
+        }
+        assertEquals( 100, table.bulkLoad(macs, interfaceValues, 100) );
+
+        table.add(1000L, 1);
+        table.add(1001L, 1);
+        assertEquals( 100, table.size() );
+        int kept = 0;
+        for ( int i = 0; i < 100; i++ )
+        {
+            if ( table.findInterface((long) i) == 1 )
+            {
+                kept++;
+            }
+        }
+        assertEquals( 98, kept );
+    }
+
+    @Test
+    // the interface rings follow the value the entry was learned with, even if the
+    // caller changes the stored BridgeEntry afterwards
+    public void testChangedEntryInterface() throws Exception {
+
+        System.out.println( String.format( "TEST: changed entry interface ..." ));
+
+        BridgeEntry entry = new BridgeEntry();
+        MacAddress.toBytes(1L, entry.macAddress);
+        entry.interfaceValue = 2;
+        table.add(entry);
+        table.add(2L, 2);
+
+        entry.interfaceValue = 3;
+        assertEquals( 3, table.put(1L, 4) );
+        assertEquals( 1, table.countByInterface(2) );
+        assertEquals( 0, table.countByInterface(3) );
+        assertEquals( 1, table.countByInterface(4) );
+
+        assertEquals( 1, table.flushInterface(2) );
+        assertEquals( 4, table.findInterface(1L) );
+        assertEquals( 1, table.size() );
+    }
+
+    @Test
+    // flushing an interface removes exactly its entries, after moves and aging
+    public void testFlushInterface() throws Exception {
+
+        System.out.println( String.format( "TEST: flush interface ..." ));
+
+        final long[] now = { 1000 };
+        table.setClock(() -> now[0]);
+        table.setMaxAge(300);
+
+        int count = 2000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 3) << 24) | i, i % 4);
+        }
+        int untracked = HashTable.MAX_TRACKED_INTERFACE + 1;
+        table.add(0x7f0000000001L, untracked);
+        table.add(0x7f0000000002L, untracked);
+
+        now[0] = 1200;
+        // entries 0 .. 99 move from interface 0 to 1 (and are refreshed)
+        for ( int i = 0; i < 100; i += 4 )
+        {
+            assertEquals( 0, table.put(((long) (i % 3) << 24) | i, 1) );
+        }
+        for ( int i = 1; i < count; i += 4 )
+        {
+            table.put(((long) (i % 3) << 24) | i, 1);
+        }
+
+        // everything not re-learned at 1200 ages out: only interface 1 keeps entries
+        now[0] = 1400;
+        table.age(table.capacity());
+        assertEquals( 0, table.countByInterface(0) );
+        assertEquals( 0, table.countByInterface(2) );
+        assertEquals( count / 4 + 25, table.countByInterface(1) );
+        assertEquals( count / 4 + 25, table.size() );
+
+        assertEquals( count / 4 + 25, table.flushInterface(1) );
+        assertEquals( 0, table.countByInterface(1) );
+        assertEquals( 0, table.flushInterface(1) );
+        assertEquals( 0, table.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(((long) (i % 3) << 24) | i) );
+        }
+
+        now[0] = 1500;
+        table.add(0x7f0000000001L, untracked);
+        table.add(0x7f0000000002L, 5);
+        assertEquals( 1, table.flushInterface(untracked) );
+        assertEquals( 5, table.findInterface(0x7f0000000002L) );
+        assertEquals( 1, table.size() );
+    }
+
+    @Test
+    // cursors visit every entry once, or only those of one interface / OUI
+    public void testCursor() throws Exception {
+
+        System.out.println( String.format( "TEST: cursor ..." ));
+
+        int count = 3000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 5) << 24) | (i * 7919 % 100000), i % 12);
+        }
+
+        int visited = 0;
+        long sum = 0;
+        EntryCursor cursor = table.cursor();
+        while ( cursor.next() )
+        {
+            assertEquals( cursor.interfaceValue(), table.findInterface(cursor.mac()) );
+            sum += cursor.mac();
+            visited++;
+        }
+        assertEquals( count, visited );
+        long[] expectedSum = { 0 };
+        table.forEach((mac, interfaceValue) -> expectedSum[0] += mac);
+        assertEquals( expectedSum[0], sum );
+
+        cursor = table.cursorForInterface(3);
+        visited = 0;
+        while ( cursor.next() )
+        {
+            assertEquals( 3, cursor.interfaceValue() );
+            visited++;
+        }
+        assertEquals( table.countByInterface(3), visited );
+        assertEquals( count / 12, visited );
+
+        cursor = table.cursorForOui(2);
+        visited = 0;
+        while ( cursor.next() )
+        {
+            assertEquals( 2L, cursor.mac() >>> 24 );
+            visited++;
+        }
+        assertEquals( count / 5, visited );
+
+        // an entry moving to another interface leaves the interface cursor
+        cursor.rewind();
+        assertEquals( true, cursor.next() );
+        table.put(cursor.mac(), 11);
+        try
+        {
+            cursor.next();
+            fail( "change during a pass not detected" );
+        }
+        catch ( java.util.ConcurrentModificationException e )
+        {
+            // expected
+        }
+        cursor = table.cursorForInterface(3);
+        visited = 0;
+        while ( cursor.next() )
+        {
+            visited++;
+        }
+        assertEquals( table.countByInterface(3), visited );
+    }
+
+    @Test
+    // range scan in ascending MAC address order
+    public void testForEachInRange() throws Exception {
+
+        System.out.println( String.format( "TEST: range scan ..." ));
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            table.add(((long) (i % 3) << 24) | (i * 37 % 1000), i);
+        }
+
+        ForwardingSnapshot snapshot = table.snapshot();
+        long from = (1L << 24) + 100;
+        long to = (2L << 24) + 50;
+        long[] previous = { from - 1 };
+        int[] visited = { 0 };
+        table.forEachInRange(from, to, (mac, interfaceValue) -> {
+            assertEquals( true, mac > previous[0] && mac <= to );
+            assertEquals( interfaceValue, snapshot.findInterface(mac) );
+            previous[0] = mac;
+            visited[0]++;
+        });
+
+        int expected = 0;
+        for ( int i = 0; i < 1000; i++ )
+        {
+            long mac = ((long) (i % 3) << 24) | (i * 37 % 1000);
+            if ( mac >= from && mac <= to )
+            {
+                expected++;
+            }
+        }
+        assertEquals( expected, visited[0] );
+    }
+
+    @Test
+    // sequential and parallel streams over the stored entries
+    public void testStream() throws Exception {
+
+        System.out.println( String.format( "TEST: stream ..." ));
+
+        int count = 20000;
+        long expectedSum = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 9) << 32) | i, i % 100);
+            expectedSum += i % 100;
+        }
+
+        assertEquals( count, table.stream().count() );
+        assertEquals( expectedSum, table.parallelStream().mapToLong(entry -> entry.interfaceValue).sum() );
+        assertEquals( count, table.parallelStream().map(entry -> MacAddress.toLong(entry.macAddress)).distinct().count() );
+
+        // streams taken while a resize is in progress see the old and new buckets
+        table = new HashTable(16);
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 9) << 32) | i, i % 100);
+            if ( i % 97 == 0 )
+            {
+                assertEquals( i + 1, table.stream().count() );
+                assertEquals( i + 1, table.parallelStream().map(entry -> MacAddress.toLong(entry.macAddress)).distinct().count() );
+            }
+        }
+    }
+
     @Test
     // Customer use case example
     public void testCustomerUseCase() throws Exception  {
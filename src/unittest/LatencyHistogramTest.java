@@ -0,0 +1,75 @@
+package unittest;
+
+import loadtest.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int value = 1; value <= 100000; value++ )
+        {
+            histogram.recordValue(value);
+        }
+
+        assertEquals(100000, histogram.totalCount());
+        assertEquals(100000, histogram.max());
+        assertEquals(50000.5, histogram.mean(), 0.001);
+        // Within the 1/64 relative precision of the buckets
+        assertEquals(50000, histogram.valueAtPercentile(50), 50000 / 64.0);
+        assertEquals(99900, histogram.valueAtPercentile(99.9), 99900 / 64.0);
+        assertEquals(100000, histogram.valueAtPercentile(100));
+        assertEquals(1, histogram.valueAtPercentile(0));
+    }
+
+    @Test
+    public void testSmallValuesExact() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(3);
+        histogram.recordValue(127);
+        histogram.recordValue(-5);
+
+        assertEquals(0, histogram.valueAtPercentile(1));
+        assertEquals(3, histogram.valueAtPercentile(50));
+        assertEquals(127, histogram.valueAtPercentile(100));
+        histogram.recordValue(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    // One 10 ms stall with a 1 ms send interval stands for 9 more delayed requests
+    public void testCoordinatedOmissionCorrection() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 0; i < 90; i++ )
+        {
+            histogram.recordValueWithExpectedInterval(100, 1000000);
+        }
+        histogram.recordValueWithExpectedInterval(10000000, 1000000);
+
+        assertEquals(100, histogram.totalCount());
+        assertEquals(100, histogram.valueAtPercentile(90));
+        assertEquals(1000000, histogram.valueAtPercentile(91), 1000000 / 64.0);
+        assertEquals(10000000, histogram.max());
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.recordValue(10);
+        second.recordValue(1000);
+        second.recordValue(2000);
+
+        first.add(second);
+        assertEquals(3, first.totalCount());
+        assertEquals(2000, first.max());
+        assertEquals(10, first.valueAtPercentile(33));
+
+        first.reset();
+        assertEquals(0, first.totalCount());
+        assertEquals(0, first.valueAtPercentile(99));
+    }
+}
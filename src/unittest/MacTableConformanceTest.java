@@ -0,0 +1,311 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// HashTableTest cases that hold for every engine, run against each
+// memory mode / concurrency combination MacTables can build.
+@RunWith(Parameterized.class)
+public class MacTableConformanceTest {
+
+    private final MemoryMode memoryMode;
+    private final Concurrency concurrency;
+
+    MacTable table;
+
+    @Parameterized.Parameters(name = "{0}/{1}")
+    public static Collection<Object[]> engines()
+    {
+        List<Object[]> engines = new ArrayList<>();
+        for ( MemoryMode memoryMode : MemoryMode.values() )
+        {
+            engines.add(new Object[] { memoryMode, Concurrency.NONE });
+            engines.add(new Object[] { memoryMode, Concurrency.LOCKED });
+        }
+        engines.add(new Object[] { MemoryMode.OBJECTS, Concurrency.STRIPED });
+        return engines;
+    }
+
+    public MacTableConformanceTest(MemoryMode memoryMode, Concurrency concurrency)
+    {
+        this.memoryMode = memoryMode;
+        this.concurrency = concurrency;
+    }
+
+    // Helper method to add entry into the table using specified macAddress and interface value.
+    private void addEntry(byte[] macAddress, int interfaceValue) throws HashTableException {
+
+        BridgeEntry bridgeEntry = new BridgeEntry();
+        bridgeEntry.macAddress = macAddress;
+        bridgeEntry.interfaceValue = interfaceValue;
+        table.add(bridgeEntry);
+    }
+
+    private void find(byte[] macAddress, int expectedValue) throws HashTableException
+    {
+        BridgeEntry findRecord = table.find(macAddress);
+        assertTrue( Support.AreEqual(macAddress, findRecord.macAddress) );
+        assertEquals( expectedValue, findRecord.interfaceValue );
+        assertEquals( expectedValue, table.findInterface(macAddress) );
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        MacTableOptions options = new MacTableOptions();
+        options.memoryMode = memoryMode;
+        options.concurrency = concurrency;
+        table = MacTables.create(options);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table.close();
+    }
+
+    @Test
+    // add and find test (simple)
+    public void testAddAndFind() throws Exception {
+
+        System.out.println( String.format( "TEST: %s/%s add and find ...", memoryMode, concurrency ));
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        addEntry(macAddress, 100);
+        find(macAddress, 100);
+        assertEquals( 1, table.size() );
+    }
+
+    @Test
+    // add and find test where different mac addresses can hash to the same index.
+    public void testAddHashCollision() throws Exception {
+
+        byte[] macAddress =  Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision1 = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision2 = Support.GetMACAddress((byte) 0,(byte) 1,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+
+        addEntry(macAddress, 10);
+        addEntry(macAddressCollision1, 50);
+        addEntry(macAddressCollision2, 100);
+
+        find(macAddress, 10);
+        find(macAddressCollision1, 50);
+        find(macAddressCollision2, 100);
+    }
+
+    @Test
+    // a MAC address that was never added is not found
+    public void testMissing() throws Exception {
+
+        addEntry(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  ), 1);
+
+        byte[] missingMacAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 0, (byte) 0,(byte) 0xFF  );
+        assertNull( table.find(missingMacAddress) );
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(missingMacAddress) );
+        assertNull( table.remove(0xFFL) );
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    // add a duplicate mac address
+    public void testUnsupportedUseCase() throws UnsupportedFeatureHashTableException {
+
+        try {
+            byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+            addEntry(macAddress, 42);
+            table.add(0x000000010101L, 42);
+        }
+        catch( UnsupportedFeatureHashTableException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            fail( e.getMessage() );
+        }
+    }
+
+    @Test
+    // a key wider than 48 bits is refused by add and put (its 6 byte form would
+    // be another MAC address)
+    public void testWideKey() throws Exception {
+
+        for ( long mac : new long[] { 1L << 48, 0xFFFF000000010101L } )
+        {
+            try
+            {
+                table.add(mac, 1);
+                fail( "wide key added" );
+            }
+            catch ( UnsupportedFeatureHashTableException e )
+            {
+                // expected
+            }
+            try
+            {
+                table.put(mac, 1);
+                fail( "wide key put" );
+            }
+            catch ( UnsupportedFeatureHashTableException e )
+            {
+                // expected
+            }
+        }
+        assertEquals( 0, table.size() );
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(0x000000010101L) );
+    }
+
+    @Test
+    // a station moving to another interface is updated in place
+    public void testPutMove() throws Exception {
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        addEntry(macAddress, 10);
+
+        assertEquals( 10, table.put(0x000000010101L, 20) );
+        find(macAddress, 20);
+
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.put(0x000001010101L, 30) );
+        assertEquals( 30, table.findInterface(0x000001010101L) );
+        assertEquals( 2, table.size() );
+    }
+
+    @Test
+    // an entry stored with interface value -1 (INVALID_INTERFACE_VALUE) is still
+    // removed and returned, not mistaken for a missing one
+    public void testRemoveNegativeInterface() throws Exception {
+
+        if ( memoryMode == MemoryMode.OFF_HEAP )
+        {
+            // off-heap slots only hold 0 .. OffHeapHashTable.MAX_INTERFACE_VALUE
+            return;
+        }
+
+        table.add(0x000000010101L, BridgeEntry.INVALID_INTERFACE_VALUE);
+        BridgeEntry removed = table.remove(0x000000010101L);
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, removed.interfaceValue );
+        assertEquals( 0x000000010101L, MacAddress.toLong(removed.macAddress) );
+        assertEquals( 0, table.size() );
+        assertNull( table.remove(0x000000010101L) );
+    }
+
+    @Test
+    // remove entries sharing NIC bytes, inserted out of order
+    public void testRemove() throws Exception {
+
+        int count = 32;
+        long[] macs = new long[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            int oui = (i * 7) % count;
+            macs[i] = ((long) oui << 24) | 0x010101L;
+            table.add(macs[i], i);
+        }
+
+        for ( int i = 0; i < count; i += 2 )
+        {
+            BridgeEntry removed = table.remove(macs[i]);
+            assertEquals( i, removed.interfaceValue );
+            assertEquals( macs[i], MacAddress.toLong(removed.macAddress) );
+        }
+        assertNull( table.remove(macs[0]) );
+        assertEquals( count / 2, table.size() );
+
+        for ( int i = 0; i < count; i++ )
+        {
+            int expectedValue = ( i % 2 == 0 ) ? BridgeEntry.INVALID_INTERFACE_VALUE : i;
+            assertEquals( expectedValue, table.findInterface(macs[i]) );
+        }
+    }
+
+    @Test
+    // the table grows past its initial capacity without losing entries
+    public void testManyEntries() throws Exception {
+
+        int count = 20000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 7) << 40) | (i * 2654435761L & 0xFFFFFFFFFFL), i % 1000);
+        }
+        assertEquals( count, table.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( i % 1000, table.findInterface(((long) (i % 7) << 40) | (i * 2654435761L & 0xFFFFFFFFFFL)) );
+        }
+    }
+
+    @Test
+    // look up a burst of MAC addresses at once
+    public void testFindInterfaces() throws Exception {
+
+        int count = 64;
+        long[] macs = new long[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // every third MAC address is not in the table, some share NIC bytes
+            macs[i] = ((long) (i % 4) << 24) | (i / 4);
+            if ( i % 3 != 0 )
+            {
+                table.add(macs[i], i);
+            }
+        }
+
+        int[] outIfaces = new int[count];
+        table.findInterfaces(macs, outIfaces, count);
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( ( i % 3 != 0 ) ? i : BridgeEntry.INVALID_INTERFACE_VALUE, outIfaces[i] );
+        }
+    }
+
+    @Test
+    // every entry is visited once
+    public void testForEach() throws Exception {
+
+        Map<Long, Integer> expected = new HashMap<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            long mac = ((long) (i % 5) << 32) | (i * 31L);
+            table.add(mac, i);
+            expected.put(mac, i);
+        }
+        table.remove(0L);
+        expected.remove(0L);
+
+        Map<Long, Integer> visited = new HashMap<>();
+        table.forEach((mac, interfaceValue) -> assertNull( visited.put(mac, interfaceValue) ));
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    // Customer use case example
+    public void testCustomerUseCase() throws Exception  {
+
+        byte[] missingMacAddress = new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00,(byte) 0x00, (byte) 0x0FF  };
+
+        addEntry(new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00,(byte) 0x00, (byte) 0x01  }, 1);
+        addEntry(new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00,(byte) 0x01, (byte) 0x01  }, 9);
+        byte[] macAddress2 = new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x01,(byte) 0x00, (byte) 0x01  };
+        addEntry(macAddress2, 4);
+        addEntry(new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x01, (byte) 0x00,(byte) 0x00, (byte) 0x01  }, 4);
+        addEntry(new byte[] { (byte) 0x00, (byte) 0x01, (byte) 0x00, (byte) 0x00,(byte) 0x00, (byte) 0x01  }, 7);
+
+        // Valid mac address
+        assertEquals( 4, table.findInterface(macAddress2) );
+
+        // Invalid mac address
+        assertEquals( BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(missingMacAddress) );
+    }
+}
@@ -0,0 +1,173 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MappedHashTableTest {
+
+    private static final int COUNT = 5000;
+
+    Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("mac-table", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    // MAC address i: several vendors sharing NIC values
+    private static long macFor(int i)
+    {
+        return ((long) (i % 8) << 24) | (i / 8);
+    }
+
+    @Test
+    // snapshot of a HashTable is served from the mapped file and can be re-learned
+    public void testHashTableSnapshot() throws Exception {
+
+        HashTable table = new HashTable();
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            BridgeEntry entry = new BridgeEntry();
+            MacAddress.toBytes(macFor(i), entry.macAddress);
+            entry.interfaceValue = i;
+            table.add(entry);
+        }
+        table.writeSnapshot(file);
+
+        MappedHashTable snapshot = MappedHashTable.open(file);
+        assertEquals(COUNT, snapshot.size());
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            assertEquals(i, snapshot.findInterface(macFor(i)));
+        }
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, snapshot.findInterface(macFor(COUNT)));
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 3,(byte) 0, (byte) 0,(byte) 1 );
+        assertEquals(true, Support.AreEqual(macAddress, snapshot.find(macAddress).macAddress));
+        assertNull(snapshot.find(Support.GetMACAddress((byte) 1,(byte) 0,(byte) 0,(byte) 0, (byte) 0,(byte) 1 )));
+
+        HashTable restored = new HashTable(COUNT);
+        restored.loadSnapshot(file);
+        assertEquals(COUNT, restored.size());
+        assertEquals(11, restored.findInterface(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 3,(byte) 0, (byte) 0,(byte) 1 )));
+    }
+
+    @Test
+    // a table with its own hasher is re-laid out in the snapshot
+    public void testSeededPrimitiveHashTableSnapshot() throws Exception {
+
+        PrimitiveHashTable table = new PrimitiveHashTable(COUNT, MixingMacHasher.randomSeed());
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            table.add(macFor(i), i);
+        }
+        MappedHashTable.write(file, table);
+
+        PrimitiveHashTable restored = MappedHashTable.open(file).toPrimitiveHashTable();
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            assertEquals(i, restored.findInterface(macFor(i)));
+        }
+    }
+
+    @Test
+    // snapshot of a PrimitiveHashTable copies the slot arrays both ways
+    public void testPrimitiveHashTableSnapshot() throws Exception {
+
+        PrimitiveHashTable table = new PrimitiveHashTable();
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            table.add(macFor(i), i);
+        }
+        MappedHashTable.write(file, table);
+
+        MappedHashTable snapshot = MappedHashTable.open(file);
+        PrimitiveHashTable restored = snapshot.toPrimitiveHashTable();
+        assertEquals(COUNT, restored.size());
+        for ( int i = 0; i < COUNT; i++ )
+        {
+            assertEquals(i, snapshot.findInterface(macFor(i)));
+            assertEquals(i, restored.findInterface(macFor(i)));
+        }
+
+        restored.add(macFor(COUNT), COUNT);
+        assertEquals(COUNT, restored.findInterface(macFor(COUNT)));
+    }
+
+    @Test
+    // a closed snapshot is unmapped and refuses lookups
+    public void testClose() throws Exception {
+
+        PrimitiveHashTable table = new PrimitiveHashTable();
+        table.add(macFor(1), 1);
+        MappedHashTable.write(file, table);
+
+        MappedHashTable snapshot = MappedHashTable.open(file);
+        assertEquals(1, snapshot.findInterface(macFor(1)));
+        snapshot.close();
+        snapshot.close();
+        try
+        {
+            snapshot.findInterface(macFor(1));
+            fail("lookup in a closed snapshot");
+        }
+        catch ( IllegalStateException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    // a file without an empty slot ends the probe with an error instead of a hang
+    public void testCorruptSnapshot() throws Exception {
+
+        MappedHashTable.write(file, new PrimitiveHashTable());
+        int capacity;
+        try ( MappedHashTable snapshot = MappedHashTable.open(file) )
+        {
+            capacity = snapshot.capacity();
+        }
+
+        ByteBuffer keys = ByteBuffer.allocate(capacity * Long.BYTES);
+        for ( int slot = 0; slot < capacity; slot++ )
+        {
+            keys.putLong(macFor(slot));
+        }
+        keys.flip();
+        try ( FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE) )
+        {
+            // keys follow the four int header fields
+            channel.write(keys, 4 * Integer.BYTES);
+        }
+
+        try ( MappedHashTable snapshot = MappedHashTable.open(file) )
+        {
+            // stored keys are still found (the values are all 0)
+            assertEquals(0, snapshot.findInterface(macFor(3)));
+            snapshot.findInterface(macFor(capacity));
+            fail("probe of a full snapshot returned");
+        }
+        catch ( UncheckedIOException e )
+        {
+            // expected
+        }
+    }
+}
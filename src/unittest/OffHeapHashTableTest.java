@@ -0,0 +1,109 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class OffHeapHashTableTest {
+
+    OffHeapHashTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new OffHeapHashTable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table.close();
+        table = null;
+    }
+
+    @Test
+    // add and find test where different mac addresses share the same NIC bytes.
+    public void testAddHashCollision() throws Exception {
+
+        byte[] macAddress =  Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision1 = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision2 = Support.GetMACAddress((byte) 0xff,(byte) 0xff,(byte) 0xff,(byte) 0xff, (byte) 0xff,(byte) 0xff );
+
+        BridgeEntry entry = new BridgeEntry();
+        entry.macAddress = macAddress;
+        entry.interfaceValue = 0;
+        table.add(entry);
+        table.add(MacAddress.toLong(macAddressCollision1), 50);
+        table.add(MacAddress.toLong(macAddressCollision2), OffHeapHashTable.MAX_INTERFACE_VALUE);
+
+        assertEquals(0, table.findInterface(macAddress));
+        assertEquals(50, table.findInterface(macAddressCollision1));
+        assertEquals(OffHeapHashTable.MAX_INTERFACE_VALUE, table.findInterface(macAddressCollision2));
+        assertEquals(true, Support.AreEqual(macAddressCollision2, table.find(macAddressCollision2).macAddress));
+        assertNull(table.find(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 2,(byte) 1, (byte) 1,(byte) 1  )));
+    }
+
+    @Test
+    // entries remain reachable after the off-heap memory grows
+    public void testGrow() throws Exception {
+
+        int count = 100000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(0x0000AA000000L + i, i & 0xfff);
+        }
+
+        assertEquals(count, table.size());
+        assertEquals((long) table.capacity() * Long.BYTES, table.memoryUsage());
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals(i & 0xfff, table.findInterface(0x0000AA000000L + i));
+        }
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    public void testInterfaceOutOfRange() throws Exception {
+
+        table.add(0x000000010101L, OffHeapHashTable.MAX_INTERFACE_VALUE + 1);
+    }
+
+    @Test
+    // a key wider than 48 bits would be stored under another MAC address
+    public void testWideKey() throws Exception {
+
+        for ( long mac : new long[] { 1L << 48, -1L } )
+        {
+            try
+            {
+                table.put(mac, 1);
+                fail("wide key stored");
+            }
+            catch ( UnsupportedFeatureHashTableException e )
+            {
+                // expected
+            }
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    // add a duplicate mac address
+    public void testUnsupportedUseCase() throws Exception {
+
+        table.add(0x000000010101L, 42);
+        table.add(0x000000010101L, 42);
+    }
+
+    @Test(expected = NullHashTableException.class)
+    // the table cannot be used once its memory is released
+    public void testClose() throws Exception {
+
+        table.add(0x000000010101L, 42);
+        table.close();
+        assertEquals(0, table.memoryUsage());
+        table.findInterface(0x000000010101L);
+    }
+}
@@ -0,0 +1,154 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OuiIndexedHashTableTest {
+
+    OuiIndexedHashTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new OuiIndexedHashTable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    public void testAddAndFind() throws Exception {
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0x00,(byte) 0x1b,(byte) 0x21,(byte) 0x3a, (byte) 0x4c,(byte) 0x5d );
+        BridgeEntry entry = new BridgeEntry();
+        entry.macAddress = macAddress;
+        entry.interfaceValue = 7;
+        table.add(entry);
+        table.add(0x001b21000001L, 8);
+        table.add(0x3c5ab4000001L, 9);
+
+        assertEquals(3, table.size());
+        assertEquals(2, table.ouiCount());
+        assertEquals(7, table.findInterface(macAddress));
+        assertEquals(8, table.findInterface(0x001b21000001L));
+        assertEquals(9, table.findInterface(0x3c5ab4000001L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(0x3c5ab4000002L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(0x0a0b0c000001L));
+    }
+
+    @Test(expected=UnsupportedFeatureHashTableException.class)
+    public void testAddDuplicate() throws Exception {
+        table.add(0x001b21000001L, 1);
+        table.add(0x001b21000001L, 2);
+    }
+
+    @Test
+    public void testPutAndRemove() throws Exception {
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.put(0x001b21000001L, 1));
+        assertEquals(1, table.put(0x001b21000001L, 2));
+        assertEquals(2, table.findInterface(0x001b21000001L));
+
+        assertEquals(2, table.remove(0x001b21000001L));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.remove(0x001b21000001L));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    // Mixed add/remove against a HashMap; exercises growth and backward shift deletion.
+    public void testRandomOperations() throws Exception {
+        Random random = new Random(15);
+        Map<Long, Integer> expected = new HashMap<>();
+        int[] ouis = { 0x001b21, 0x3c5ab4, 0xf8bc12 };
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            long mac = ((long) ouis[random.nextInt(ouis.length)] << 24) | random.nextInt(2048);
+            if ( random.nextInt(3) == 0 )
+            {
+                Integer previous = expected.remove(mac);
+                assertEquals(previous == null ? BridgeEntry.INVALID_INTERFACE_VALUE : previous.intValue(), table.remove(mac));
+            }
+            else
+            {
+                Integer previous = expected.put(mac, i);
+                assertEquals(previous == null ? BridgeEntry.INVALID_INTERFACE_VALUE : previous.intValue(), table.put(mac, i));
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for ( Map.Entry<Long, Integer> entry : expected.entrySet() )
+        {
+            assertEquals(entry.getValue().intValue(), table.findInterface(entry.getKey()));
+        }
+    }
+
+    @Test(expected=UnsupportedFeatureHashTableException.class)
+    // the OUI of a wider key would not fit in 24 bits
+    public void testWideKey() throws Exception {
+        table.put(-1L, 1);
+    }
+
+    @Test
+    // vendors with a couple of stations keep small tables that grow on demand
+    public void testSparseVendors() throws Exception {
+        for ( int oui = 0; oui < 1000; oui++ )
+        {
+            table.add(((long) oui << 24) | 1, oui);
+            table.add(((long) oui << 24) | 2, oui);
+        }
+        long sparse = table.memoryUsage();
+        for ( int nic = 3; nic < 100; nic++ )
+        {
+            table.add(nic, nic);
+        }
+
+        assertEquals(1000 * 2 + 97, table.size());
+        assertEquals(true, sparse < 1000 * 16 * 2 * Integer.BYTES);
+        for ( int oui = 0; oui < 1000; oui++ )
+        {
+            assertEquals(oui, table.findInterface(((long) oui << 24) | 2));
+        }
+        for ( int nic = 1; nic < 100; nic++ )
+        {
+            assertEquals(nic < 3 ? 0 : nic, table.findInterface(nic));
+        }
+    }
+
+    @Test
+    public void testVendorQueryAndFlush() throws Exception {
+        for ( int nic = 0; nic < 100; nic++ )
+        {
+            table.add(0x001b21000000L | nic, nic);
+            table.add(0x3c5ab4000000L | nic, nic);
+        }
+
+        assertEquals(100, table.countByOui(0x001b21));
+        long[] sum = new long[1];
+        table.forEachInOui(0x001b21, (mac, interfaceValue) -> {
+            assertEquals(0x001b21L, mac >>> 24);
+            assertEquals(mac & 0xFFFFFF, interfaceValue);
+            sum[0] += interfaceValue;
+        });
+        assertEquals(99 * 100 / 2, sum[0]);
+
+        assertEquals(100, table.flushOui(0x001b21));
+        assertEquals(0, table.countByOui(0x001b21));
+        assertEquals(100, table.size());
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(0x001b21000005L));
+        assertEquals(5, table.findInterface(0x3c5ab4000005L));
+
+        // A flushed vendor can learn again
+        table.add(0x001b21000005L, 42);
+        assertEquals(42, table.findInterface(0x001b21000005L));
+        assertEquals(0, table.flushOui(0x0a0b0c));
+    }
+}
@@ -0,0 +1,170 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PrimitiveHashTableTest {
+
+    PrimitiveHashTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new PrimitiveHashTable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    public void testPackedMacAddress() throws Exception {
+
+        byte[] macAddress = Support.GetMACAddress((byte) 0x01,(byte) 0x23,(byte) 0x45,(byte) 0x67, (byte) 0x89,(byte) 0xab );
+        long mac = MacAddress.toLong(macAddress);
+        assertEquals(0x0123456789abL, mac);
+
+        byte[] actual = new byte[BridgeEntry.NUM_FIELDS];
+        MacAddress.toBytes(mac, actual);
+        assertEquals(true, Support.AreEqual(macAddress, actual));
+    }
+
+    @Test
+    // add and find test where different mac addresses share the same NIC bytes.
+    public void testAddHashCollision() throws Exception {
+
+        byte[] macAddress =  Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision1 = Support.GetMACAddress((byte) 0,(byte) 0,(byte) 1,(byte) 1, (byte) 1,(byte) 1  );
+        byte[] macAddressCollision2 = Support.GetMACAddress((byte) 0,(byte) 1,(byte) 0,(byte) 1, (byte) 1,(byte) 1  );
+
+        table.add(MacAddress.toLong(macAddress), 10);
+        table.add(MacAddress.toLong(macAddressCollision1), 50);
+        table.add(MacAddress.toLong(macAddressCollision2), 100);
+
+        assertEquals(10, table.findInterface(macAddress));
+        assertEquals(50, table.findInterface(macAddressCollision1));
+        assertEquals(100, table.findInterface(macAddressCollision2));
+        assertEquals(true, Support.AreEqual(macAddressCollision1, table.find(macAddressCollision1).macAddress));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    // entries remain reachable after the table grows
+    public void testGrow() throws Exception {
+
+        int count = 10000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(0x0000AA000000L + i, i);
+        }
+
+        assertEquals(count, table.size());
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals(i, table.findInterface(0x0000AA000000L + i));
+        }
+    }
+
+    @Test
+    public void testFindInterfaces() throws Exception {
+
+        int count = 256;
+        long[] macs = new long[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            macs[i] = 0x0000AA000000L + i;
+            if ( i % 3 != 0 )
+            {
+                table.add(macs[i], i);
+            }
+        }
+
+        int[] outIfaces = new int[count];
+        table.findInterfaces(macs, outIfaces, count);
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( ( i % 3 != 0 ) ? i : BridgeEntry.INVALID_INTERFACE_VALUE, outIfaces[i] );
+        }
+    }
+
+    @Test
+    // a station moving to another interface is updated in place
+    public void testPutMove() throws Exception {
+
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.put(0x000000010101L, 10));
+        assertEquals(10, table.put(0x000000010101L, 20));
+        assertEquals(20, table.findInterface(0x000000010101L));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    // Remove from crowded probe runs and check every remaining entry is still found
+    public void testRemove() throws Exception {
+
+        int count = 1000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(i, i);
+        }
+        for ( int i = 0; i < count; i += 3 )
+        {
+            assertEquals(i, table.removeInterface(i));
+        }
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.removeInterface(0));
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals(i % 3 == 0 ? BridgeEntry.INVALID_INTERFACE_VALUE : i, table.findInterface((long) i));
+        }
+        assertEquals(count - (count + 2) / 3, table.size());
+    }
+
+    @Test
+    public void testMissingMacAddress() throws Exception {
+
+        byte[] missingMacAddress = new byte[] { (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00,(byte) 0x00, (byte) 0x0FF  };
+        table.add(MacAddress.toLong(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 0, (byte) 0,(byte) 1 )), 1);
+
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(missingMacAddress));
+        assertNull(table.find(missingMacAddress));
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    // add a duplicate mac address
+    public void testUnsupportedUseCase() throws Exception {
+
+        long mac = MacAddress.toLong(Support.GetMACAddress((byte) 0,(byte) 0,(byte) 0,(byte) 1, (byte) 1,(byte) 1  ));
+        table.add(mac, 42);
+        table.add(mac, 42);
+    }
+
+    @Test
+    // keys wider than 48 bits are rejected instead of stored unreachable
+    public void testKeyOutOfRange() throws Exception {
+
+        try
+        {
+            table.add(1L << 48, 1);
+            fail("49-bit key added");
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // expected
+        }
+        try
+        {
+            table.put(-1L, 1);
+            fail("negative key stored");
+        }
+        catch ( UnsupportedFeatureHashTableException e )
+        {
+            // expected
+        }
+        assertEquals(0, table.size());
+    }
+}
@@ -0,0 +1,140 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SwissHashTableTest {
+
+    // Control bytes used by SwissHashTable
+    private static final byte EMPTY = (byte) 0x80;
+    private static final byte DELETED = (byte) 0xFE;
+
+    // Bit mask of the bytes of control[offset .. offset + 15] equal to value
+    private static int expectedMask(byte[] control, int offset, byte value)
+    {
+        int mask = 0;
+        for ( int i = 0; i < 16; i++ )
+        {
+            if ( control[offset + i] == value )
+            {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    // Check a matcher against byte by byte comparisons on random control groups
+    private static void checkMatcher(GroupMatcher matcher)
+    {
+        Random random = new Random(7);
+        byte[] control = new byte[64];
+        for ( int round = 0; round < 20000; round++ )
+        {
+            for ( int i = 0; i < control.length; i++ )
+            {
+                int kind = random.nextInt(8);
+                // few distinct fragments, so groups hold repeated and adjacent values
+                control[i] = kind == 0 ? EMPTY : kind == 1 ? DELETED : (byte) random.nextInt(kind == 2 ? 128 : 3);
+            }
+            int offset = random.nextInt(control.length - 15);
+            byte h2 = (byte) random.nextInt(random.nextBoolean() ? 3 : 128);
+
+            assertEquals(expectedMask(control, offset, h2), matcher.matchHash(control, offset, h2));
+            assertEquals(expectedMask(control, offset, EMPTY), matcher.matchEmpty(control, offset));
+            assertEquals(expectedMask(control, offset, EMPTY) | expectedMask(control, offset, DELETED), matcher.matchAvailable(control, offset));
+        }
+    }
+
+    @Test
+    // the SWAR and Vector API matchers agree with byte compares
+    public void testMatchers() throws Exception {
+
+        checkMatcher(GroupMatcher.SWAR);
+        if ( GroupMatcher.VECTOR != null )
+        {
+            checkMatcher(GroupMatcher.VECTOR);
+        }
+    }
+
+    // Random adds, moves and removes at a high load factor, checked against a HashMap
+    private static void checkAgainstMap(GroupMatcher matcher) throws Exception
+    {
+        SwissHashTable table = new SwissHashTable(4000, new MixingMacHasher(0), 0.95f, matcher);
+        int capacity = table.capacity();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for ( int i = 0; i < 200000; i++ )
+        {
+            // keys from a small space keep the table near its load limit with many DELETED slots
+            long mac = ((long) random.nextInt(16) << 24) | random.nextInt(300);
+            int op = random.nextInt(3);
+            if ( op == 0 )
+            {
+                Integer previous = expected.put(mac, i & 0xFFF);
+                assertEquals(previous == null ? BridgeEntry.INVALID_INTERFACE_VALUE : previous.intValue(), table.put(mac, i & 0xFFF));
+            }
+            else if ( op == 1 )
+            {
+                Integer previous = expected.remove(mac);
+                BridgeEntry removed = table.remove(mac);
+                assertEquals(previous == null ? BridgeEntry.INVALID_INTERFACE_VALUE : previous.intValue(),
+                             removed == null ? BridgeEntry.INVALID_INTERFACE_VALUE : removed.interfaceValue);
+            }
+            else
+            {
+                Integer value = expected.get(mac);
+                assertEquals(value == null ? BridgeEntry.INVALID_INTERFACE_VALUE : value.intValue(), table.findInterface(mac));
+            }
+            assertEquals(expected.size(), table.size());
+        }
+
+        Map<Long, Integer> visited = new HashMap<>();
+        table.forEach((mac, interfaceValue) -> assertNull(visited.put(mac, interfaceValue)));
+        assertEquals(expected, visited);
+        // removed slots are reclaimed by rehashing in place, not by growing
+        assertEquals(capacity, table.capacity());
+    }
+
+    @Test
+    public void testHighLoadSwar() throws Exception {
+        checkAgainstMap(GroupMatcher.SWAR);
+    }
+
+    @Test
+    public void testHighLoadVector() throws Exception {
+        checkAgainstMap(GroupMatcher.vectorOrSwar());
+    }
+
+    @Test
+    // the table grows past its initial capacity without losing entries
+    public void testGrow() throws Exception {
+
+        SwissHashTable table = new SwissHashTable();
+        int count = 100000;
+        for ( int i = 0; i < count; i++ )
+        {
+            table.add(((long) (i % 5) << 40) | i, i & 0xFF);
+        }
+        assertEquals(count, table.size());
+        assertEquals(true, table.size() <= table.capacity() * SwissHashTable.DEFAULT_LOAD_FACTOR);
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals(i & 0xFF, table.findInterface(((long) (i % 5) << 40) | i));
+        }
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(5L << 40));
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    // a key wider than 48 bits could never match the 6 byte form of the address
+    public void testWideKey() throws Exception {
+
+        new SwissHashTable().add(1L << 48, 1);
+    }
+}
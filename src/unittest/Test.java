@@ -29,6 +29,22 @@ public class Test {
         test.testAddHashCollision();
         test.tearDown();
 
+        test.setUp();
+        test.testResize();
+        test.tearDown();
+
+        test.setUp();
+        test.testPutMove();
+        test.tearDown();
+
+        test.setUp();
+        test.testRemove();
+        test.tearDown();
+
+        test.setUp();
+        test.testAging();
+        test.tearDown();
+
         try
         {
             test.setUp();
@@ -0,0 +1,86 @@
+package unittest;
+
+import com.onqware.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VlanHashTableTest {
+
+    VlanHashTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new VlanHashTable();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    // The same MAC address learned on different interfaces in different VLANs
+    public void testSameMacInVlans() throws Exception {
+
+        long mac = MacAddress.toLong(Support.GetMACAddress((byte) 0,(byte) 0x1b,(byte) 0x21,(byte) 1, (byte) 1,(byte) 1  ));
+        table.add(1, mac, 10);
+        table.add(4095, mac, 20);
+
+        assertEquals(10, table.findInterface(1, mac));
+        assertEquals(20, table.findInterface(4095, mac));
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.findInterface(2, mac));
+        assertEquals(2, table.size());
+        assertEquals(1, table.countByVlan(1));
+        assertEquals(4095, VlanHashTable.vlanOf(VlanHashTable.keyOf(4095, mac)));
+    }
+
+    @Test(expected = UnsupportedFeatureHashTableException.class)
+    public void testDuplicateInVlan() throws Exception {
+        table.add(7, 0x0123456789abL, 1);
+        table.add(7, 0x0123456789abL, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundHashTableException.class)
+    public void testInvalidVlan() throws Exception {
+        table.add(VlanHashTable.VLAN_COUNT, 0x0123456789abL, 1);
+    }
+
+    @Test
+    public void testPutAndRemove() throws Exception {
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.put(3, 0x0123456789abL, 1));
+        assertEquals(1, table.put(3, 0x0123456789abL, 2));
+        assertEquals(1, table.countByVlan(3));
+
+        assertEquals(BridgeEntry.INVALID_INTERFACE_VALUE, table.remove(4, 0x0123456789abL));
+        assertEquals(2, table.remove(3, 0x0123456789abL));
+        assertEquals(0, table.countByVlan(3));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testFlushVlan() throws Exception {
+        for ( int vlan = 1; vlan <= 8; vlan++ )
+        {
+            for ( int i = 0; i < 500; i++ )
+            {
+                table.add(vlan, i, vlan);
+            }
+        }
+
+        assertEquals(500, table.flushVlan(3));
+        assertEquals(0, table.flushVlan(3));
+        assertEquals(0, table.flushVlan(100));
+        assertEquals(0, table.countByVlan(3));
+        assertEquals(7 * 500, table.size());
+        for ( int vlan = 1; vlan <= 8; vlan++ )
+        {
+            for ( int i = 0; i < 500; i++ )
+            {
+                assertEquals(vlan == 3 ? BridgeEntry.INVALID_INTERFACE_VALUE : vlan, table.findInterface(vlan, i));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.onqware;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// GroupMatcher comparing the 16 control bytes with one 128-bit vector compare.
+// The compare result is read back as two longs of 0x00 / 0xFF bytes and gathered
+// into a lane mask: VectorMask.toLong is not a JIT intrinsic on JDK 17.
+// Kept in its own source root (vector/, see vector/README.md) because it needs the
+// incubator module at compile and run time (--add-modules jdk.incubator.vector);
+// src/ builds without it. Only loaded, by name, through GroupMatcher.VECTOR.
+final class VectorGroupMatcher implements GroupMatcher {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_128;
+
+    private static final long MSBS = 0x8080808080808080L;
+    // Moves bit 8i of a word to bit 56 + i (see SwarGroupMatcher)
+    private static final long GATHER = 0x0102040810204080L;
+
+    @Override
+    public int matchHash(byte[] control, int offset, byte h2)
+    {
+        return lanes(ByteVector.fromArray(SPECIES, control, offset).eq(h2));
+    }
+
+    @Override
+    public int matchEmpty(byte[] control, int offset)
+    {
+        return lanes(ByteVector.fromArray(SPECIES, control, offset).eq(SwissHashTable.EMPTY));
+    }
+
+    @Override
+    public int matchAvailable(byte[] control, int offset)
+    {
+        return lanes(ByteVector.fromArray(SPECIES, control, offset).compare(VectorOperators.LT, (byte) 0));
+    }
+
+    private static int lanes(VectorMask<Byte> mask)
+    {
+        LongVector words = mask.toVector().reinterpretAsLongs();
+        return gather(words.lane(0)) | gather(words.lane(1)) << 8;
+    }
+
+    private static int gather(long bytes)
+    {
+        return (int) ((((bytes & MSBS) >>> 7) * GATHER) >>> 56);
+    }
+}